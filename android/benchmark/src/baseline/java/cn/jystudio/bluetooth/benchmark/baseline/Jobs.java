@@ -0,0 +1,37 @@
+package cn.jystudio.bluetooth.benchmark.baseline;
+
+/**
+ * The text jobs of the benchmark corpus as the first release built them, one command array per call.
+ */
+public class Jobs {
+
+    /**
+     * printText for each line, with the title lines centered, bold and double size.
+     */
+    public static byte[] receipt(String[] lines, String encoding) {
+        byte[] job = PrinterCommand.POS_Set_PrtInit();
+        for (int i = 0; i < lines.length; ++i) {
+            boolean title = i == 0 || i == lines.length - 2;
+            job = PrinterCommand.concatAll(job,
+                    PrinterCommand.POS_S_Align(title ? 1 : 0),
+                    PrinterCommand.POS_Set_Bold(title ? 1 : 0),
+                    PrinterCommand.POS_Print_Text(lines[i] + "\n", encoding, 0, title ? 1 : 0, title ? 1 : 0, 0));
+        }
+        return PrinterCommand.concatAll(job, PrinterCommand.POS_Set_PrtAndFeedPaper(64), PrinterCommand.POS_Set_Cut(1));
+    }
+
+    /**
+     * printColumn for each row.
+     */
+    public static byte[] table(CharSequence[][] rows, int[] widths, int[] aligns, String encoding) {
+        byte[] job = new byte[0];
+        for (CharSequence[] row : rows) {
+            String[] texts = new String[row.length];
+            for (int i = 0; i < row.length; ++i) {
+                texts[i] = row[i].toString();
+            }
+            job = PrinterCommand.concatAll(job, PrintColumn.printColumn(widths, aligns, texts, encoding, 0, 0, 0, 0));
+        }
+        return job;
+    }
+}
@@ -0,0 +1,154 @@
+package cn.jystudio.bluetooth.benchmark.baseline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * printColumn of the first release's RNBluetoothEscposPrinterModule, with arrays in place of the
+ * bridge arrays and the rows concatenated instead of sent one by one. The layout code is unchanged.
+ */
+public class PrintColumn {
+
+    public static byte[] printColumn(int[] columnWidths, int[] columnAligns, String[] columnTexts,
+                                     String encoding, int codepage, int widthTimes, int heigthTimes, int fonttype) {
+        /**
+         * [column1-1,
+         * column1-2,
+         * column1-3 ... column1-n]
+         * ,
+         *  [column2-1,
+         * column2-2,
+         * column2-3 ... column2-n]
+         *
+         * ...
+         *
+         */
+        List<List<String>> table = new ArrayList<List<String>>();
+
+        /**splits the column text to few rows and applies the alignment **/
+        int padding = 1;
+        for(int i=0;i<columnWidths.length;i++){
+            int width =columnWidths[i]-padding;//1 char padding
+            String text = String.copyValueOf(columnTexts[i].toCharArray());
+            List<ColumnSplitedString> splited = new ArrayList<ColumnSplitedString>();
+            int shorter = 0;
+            int counter = 0;
+            String temp = "";
+            for(int c=0;c<text.length();c++){
+                char ch = text.charAt(c);
+                int l = isChinese(ch)?2:1;
+                if (l==2){
+                    shorter++;
+                }
+                temp=temp+ch;
+
+                if(counter+l<width){
+                   counter = counter+l;
+                }else{
+                    splited.add(new ColumnSplitedString(shorter,temp));
+                    temp = "";
+                    counter=0;
+                    shorter=0;
+                }
+            }
+            if(temp.length()>0) {
+                splited.add(new ColumnSplitedString(shorter,temp));
+            }
+            int align = columnAligns[i];
+
+            List<String> formated = new ArrayList<String>();
+            for(ColumnSplitedString s: splited){
+                StringBuilder empty = new StringBuilder();
+                for(int w=0;w<(width+padding-s.getShorter());w++){
+                    empty.append(" ");
+                }
+                int startIdx = 0;
+                String ss = s.getStr();
+                if(align == 1 && ss.length()<(width-s.getShorter())){
+                    startIdx = (width-s.getShorter()-ss.length())/2;
+                    if(startIdx+ss.length()>width-s.getShorter()){
+                        startIdx--;
+                    }
+                    if(startIdx<0){
+                        startIdx=0;
+                    }
+                }else if(align==2 && ss.length()<(width-s.getShorter())){
+                    startIdx =width - s.getShorter()-ss.length();
+                }
+                empty.replace(startIdx,startIdx+ss.length(),ss);
+                formated.add(empty.toString());
+            }
+            table.add(formated);
+
+        }
+
+        /**  try to find the max row count of the table **/
+        int maxRowCount = 0;
+        for(int i=0;i<table.size()/*column count*/;i++){
+            List<String> rows = table.get(i); // row data in current column
+            if(rows.size()>maxRowCount){maxRowCount = rows.size();}// try to find the max row count;
+        }
+
+        /** loop table again to fill the rows **/
+        StringBuilder[] rowsToPrint = new StringBuilder[maxRowCount];
+        for(int column=0;column<table.size()/*column count*/;column++){
+            List<String> rows = table.get(column); // row data in current column
+            for(int row=0;row<maxRowCount;row++){
+                if(rowsToPrint[row]==null){
+                    rowsToPrint[row] = new StringBuilder();
+                }
+                if(row<rows.size()){
+                    //got the row of this column
+                    rowsToPrint[row].append(rows.get(row));
+                }else{
+                    int w =columnWidths[column];
+                    StringBuilder empty = new StringBuilder();
+                   for(int i=0;i<w;i++){
+                       empty.append(" ");
+                   }
+                    rowsToPrint[row].append(empty.toString());//Append spaces to ensure the format
+                }
+            }
+        }
+
+        /** loops the rows and print **/
+        byte[] data = new byte[0];
+        for(int i=0;i<rowsToPrint.length;i++){
+            rowsToPrint[i].append("\n\r");//wrap line..
+            data = PrinterCommand.concatAll(data, PrinterCommand.POS_Print_Text(rowsToPrint[i].toString(), encoding, codepage, widthTimes, heigthTimes, fonttype));
+        }
+        return data;
+    }
+
+    private static boolean isChinese(char c) {
+        Character.UnicodeBlock ub = Character.UnicodeBlock.of(c);
+        if (ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || ub == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B
+                || ub == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || ub == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS
+                || ub == Character.UnicodeBlock.GENERAL_PUNCTUATION) {
+            return true;
+        }
+        return false;
+    }
+
+    private static class ColumnSplitedString{
+        private int shorter;
+        private String str;
+
+        public ColumnSplitedString(int shorter, String str) {
+            this.shorter = shorter;
+            this.str = str;
+        }
+
+        public int getShorter() {
+            return shorter;
+        }
+
+        public String getStr() {
+            return str;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package cn.jystudio.bluetooth.benchmark;
+
+import cn.jystudio.bluetooth.benchmark.baseline.Jobs;
+import cn.jystudio.bluetooth.benchmark.baseline.PrintPicture;
+import cn.jystudio.bluetooth.escpos.command.sdk.PrinterCommand;
+import cn.jystudio.bluetooth.raster.ArgbImage;
+import cn.jystudio.bluetooth.raster.Dither;
+import cn.jystudio.bluetooth.raster.RasterCommands;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One encoder run checked by {@link GoldenCheck}, with its budgets.
+ * <p>
+ * Cases with a {@link #baseline()} have their golden output produced by the first release's encoders
+ * in the baseline source set. The current output must match it byte for byte, or print the same:
+ * the same text under the same modes, or the same dots. Lossy cases, the dithered images, may also
+ * flip a few dots and are then compared block by block with the golden raster.
+ */
+abstract class GoldenCase {
+    static final int EXACT = 0;
+    // GS v 0 rows, any number of rows per command
+    static final int RASTER_LINES = 1;
+    // TSC BITMAP payload, packed rows with 0 for black
+    static final int PACKED_INVERTED = 2;
+    // ESC/POS text, see PrintedText
+    static final int TEXT = 3;
+    // NV bit image columns after a 4 byte header, as FS q takes them
+    static final int NV_COLUMNS = 4;
+
+    // row buffers, headers and other small allocations on top of the planes an image case needs
+    private static final int SLACK = 128 * 1024;
+
+    final String name;
+    final int decode;
+    // may flip a few dots: dithered, or thresholded at a mean the baseline computes from its own luma
+    final boolean lossy;
+    // dots per row of the decoded raster
+    final int width;
+    final long maxAllocatedBytes;
+    final int maxOutputBytes;
+
+    GoldenCase(String name, int decode, boolean lossy, int width, long maxAllocatedBytes, int maxOutputBytes) {
+        this.name = name;
+        this.decode = decode;
+        this.lossy = lossy;
+        this.width = width;
+        this.maxAllocatedBytes = maxAllocatedBytes;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    abstract byte[] run();
+
+    /**
+     * The same job through the first release's encoders, or null for a feature it did not have, whose
+     * golden output was recorded once from its first implementation.
+     */
+    byte[] baseline() {
+        return null;
+    }
+
+    /**
+     * What the output prints, or null for an exact case: the dots of a raster, one byte per dot, or
+     * the {@link PrintedText} of a text job.
+     */
+    byte[] printed(byte[] output) {
+        switch (decode) {
+            case RASTER_LINES:
+                return rasterLinesToDots(output, width);
+            case PACKED_INVERTED:
+                return packedToDots(output, width, true);
+            case NV_COLUMNS:
+                return columnsToDots(output, width);
+            case TEXT:
+                return PrintedText.decode(output);
+            default:
+                return null;
+        }
+    }
+
+    boolean isRaster() {
+        return decode != EXACT && decode != TEXT;
+    }
+
+    static byte[] rasterLinesToDots(byte[] data, int width) {
+        List<byte[]> rows = new ArrayList<byte[]>();
+        int off = 0;
+        while (off + 8 <= data.length) {
+            if (data[off] != 29 || data[off + 1] != 118 || data[off + 2] != 48) {
+                throw new IllegalStateException("not a GS v 0 command at " + off);
+            }
+            int bytes = (data[off + 4] & 255) | (data[off + 5] & 255) << 8;
+            int lines = (data[off + 6] & 255) | (data[off + 7] & 255) << 8;
+            off += 8;
+            for (int i = 0; i < lines; ++i, off += bytes) {
+                byte[] row = new byte[bytes];
+                System.arraycopy(data, off, row, 0, bytes);
+                rows.add(row);
+            }
+        }
+        byte[] packed = new byte[rows.size() * ((width + 7) / 8)];
+        for (int i = 0; i < rows.size(); ++i) {
+            System.arraycopy(rows.get(i), 0, packed, i * ((width + 7) / 8), (width + 7) / 8);
+        }
+        return packedToDots(packed, width, false);
+    }
+
+    static byte[] columnsToDots(byte[] data, int width) {
+        int height = ((data[2] & 255) | (data[3] & 255) << 8) * 8;
+        byte[] dots = new byte[width * height];
+        for (int x = 0; x < width; ++x) {
+            for (int y = 0; y < height; ++y) {
+                dots[y * width + x] = (byte) (data[4 + x * height / 8 + y / 8] >> (7 - y % 8) & 1);
+            }
+        }
+        return dots;
+    }
+
+    static byte[] packedToDots(byte[] packed, int width, boolean inverted) {
+        int rowBytes = (width + 7) / 8;
+        int height = packed.length / rowBytes;
+        byte[] dots = new byte[width * height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int bit = packed[y * rowBytes + x / 8] >> (7 - x % 8) & 1;
+                dots[y * width + x] = (byte) (inverted ? bit ^ 1 : bit);
+            }
+        }
+        return dots;
+    }
+
+    static List<GoldenCase> all() {
+        List<GoldenCase> cases = new ArrayList<GoldenCase>();
+        String[] lines = Corpus.receiptLines();
+        cases.add(receipt("receipt-text-GBK", lines, "GBK"));
+        cases.add(receipt("receipt-text-UTF-8", lines, "UTF-8"));
+        cases.add(receipt("receipt-text-Cp437", lines, "Cp437"));
+        final CharSequence[][] rows = Corpus.orderRows();
+        cases.add(new GoldenCase("table-40-GBK", TEXT, false, 0, 32 * 1024, 4096) {
+            @Override
+            byte[] run() {
+                return Corpus.tableJob(rows, "GBK");
+            }
+
+            @Override
+            byte[] baseline() {
+                return Jobs.table(rows, Corpus.ORDER_WIDTHS, Corpus.ORDER_ALIGNS, "GBK");
+            }
+        });
+        cases.add(new GoldenCase("barcode-ean13", EXACT, false, 0, 1024, 32) {
+            @Override
+            byte[] run() {
+                return PrinterCommand.getBarCodeCommand("6901234567892", 67, 3, 100, 0, 2);
+            }
+
+            @Override
+            byte[] baseline() {
+                return cn.jystudio.bluetooth.benchmark.baseline.PrinterCommand.getBarCodeCommand("6901234567892", 67, 3, 100, 0, 2);
+            }
+        });
+        cases.add(new GoldenCase("qrcode-esc-z", EXACT, false, 0, 1024, 64) {
+            @Override
+            byte[] run() {
+                return PrinterCommand.getQRCodeCommand("https://example.com/feedback?store=42", 0, 1, 4);
+            }
+
+            @Override
+            byte[] baseline() {
+                return cn.jystudio.bluetooth.benchmark.baseline.PrinterCommand.getQRCodeCommand("https://example.com/feedback?store=42", 0, 1, 4);
+            }
+        });
+        cases.add(new GoldenCase("qrcode-gs-k", EXACT, false, 0, 4 * 1024, 80) {
+            @Override
+            byte[] run() {
+                return PrinterCommand.POS_Print_QRCode("https://example.com/feedback?store=42".getBytes(), 6, 1);
+            }
+        });
+        cases.add(qrRaster("qrcode-raster-200", 200));
+        cases.add(qrRaster("qrcode-raster-384", 384));
+        cases.add(new GoldenCase("set-font", EXACT, false, 0, 1024, 64) {
+            @Override
+            byte[] run() {
+                return PrinterCommand.POS_Set_Font("合计 Total: 164.00", 1, 0, 1, 1);
+            }
+
+            @Override
+            byte[] baseline() {
+                return cn.jystudio.bluetooth.benchmark.baseline.PrinterCommand.POS_Set_Font("合计 Total: 164.00", 1, 0, 1, 1);
+            }
+        });
+
+        int[] widths = {384, 576};
+        String[] kinds = {Corpus.PHOTO, Corpus.LOGO, Corpus.LABEL, Corpus.RECEIPT};
+        for (int width : widths) {
+            for (String kind : kinds) {
+                ArgbImage image = Corpus.image(kind, width);
+                // output sizes depend on the image size only
+                int dotsCount = width * image.getHeight();
+                int rasterBytes = image.getHeight() * (8 + width / 8);
+                int bandBytes = 5 + (image.getHeight() + 23) / 24 * (6 + width * 3);
+                cases.add(gsV0(kind + "-" + width + "-threshold-gsv0", image, Dither.THRESHOLD, dotsCount, rasterBytes));
+                cases.add(gsV0(kind + "-" + width + "-ordered-gsv0", image, Dither.ORDERED, dotsCount, rasterBytes));
+                cases.add(gsV0(kind + "-" + width + "-floyd-gsv0", image, Dither.FLOYD_STEINBERG, dotsCount, rasterBytes));
+                cases.add(escStar(kind + "-" + width + "-threshold-escstar", image, dotsCount, bandBytes));
+                cases.add(tsc(kind + "-" + width + "-ordered-tsc", image, dotsCount));
+                cases.add(packed(kind + "-" + width + "-packed-gsv0", image));
+                if (image.getHeight() % 8 == 0) {
+                    cases.add(columns(kind + "-" + width + "-threshold-nv", image, dotsCount));
+                }
+            }
+        }
+        return cases;
+    }
+
+    // printQRCode without GS ( k: modules straight to GS v 0 bands, 4 modules of quiet zone, centered,
+    // where the first release drew the QRCodeWriter matrix into a Bitmap and printed that
+    private static GoldenCase qrRaster(String name, final int size) {
+        final String content = "https://example.com/feedback?store=42";
+        final Map<EncodeHintType, Object> hints = new Hashtable<EncodeHintType, Object>();
+        hints.put(EncodeHintType.CHARACTER_SET, "utf-8");
+        hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+        ByteMatrix matrix;
+        try {
+            matrix = Encoder.encode(content, ErrorCorrectionLevel.M, hints).getMatrix();
+        } catch (WriterException e) {
+            throw new IllegalStateException(e);
+        }
+        final int columns = matrix.getWidth();
+        final byte[] modules = new byte[columns * columns];
+        for (int y = 0; y < columns; ++y) {
+            System.arraycopy(matrix.getArray()[y], 0, modules, y * columns, columns);
+        }
+        final int scale = size / (columns + 8);
+        final int margin = (size - columns * scale) / 2;
+        final int width = (size + 7) / 8 * 8;
+        final int height = size;
+        int outputBytes = (columns + 2) * 8 + height * width / 8;
+        return new GoldenCase(name, RASTER_LINES, false, width, outputBytes + 4 * 1024, outputBytes) {
+            @Override
+            byte[] run() {
+                return RasterCommands.moduleRasterLines(modules, columns, columns, scale, margin, margin, width, height);
+            }
+
+            @Override
+            byte[] baseline() {
+                BitMatrix bits;
+                try {
+                    bits = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size, hints);
+                } catch (WriterException e) {
+                    throw new IllegalStateException(e);
+                }
+                int[] pixels = new int[bits.getWidth() * bits.getHeight()];
+                for (int y = 0; y < bits.getHeight(); y++) {
+                    for (int x = 0; x < bits.getWidth(); x++) {
+                        pixels[y * bits.getWidth() + x] = bits.get(x, y) ? 0xff000000 : 0xffffffff;
+                    }
+                }
+                return PrintPicture.POS_PrintBMP(new ArgbImage(pixels, bits.getWidth(), bits.getHeight()), 0);
+            }
+        };
+    }
+
+    private static GoldenCase receipt(String name, final String[] lines, final String encoding) {
+        return new GoldenCase(name, TEXT, false, 0, 8 * 1024, 1024) {
+            @Override
+            byte[] run() {
+                return Corpus.receiptJob(lines, encoding);
+            }
+
+            @Override
+            byte[] baseline() {
+                return Jobs.receipt(lines, encoding);
+            }
+        };
+    }
+
+    private static GoldenCase gsV0(String name, final ArgbImage image, final int dither, int dots, int outputBytes) {
+        final int width = image.getWidth();
+        // the dots, the luma plane of a threshold and the commands; lossy even for a threshold, the
+        // baseline rounds its luma in floating point and gray levels at the mean may flip
+        return new GoldenCase(name, RASTER_LINES, true, width, 2L * dots + outputBytes + SLACK, outputBytes) {
+            @Override
+            byte[] run() {
+                return RasterCommands.rasterLines(Dither.toBWPix(image, 0, dither, false), width, 0, false);
+            }
+
+            @Override
+            byte[] baseline() {
+                if (dither == Dither.THRESHOLD) {
+                    return PrintPicture.POS_PrintBMP(image, 0);
+                } else if (dither == Dither.ORDERED) {
+                    return PrintPicture.eachLinePixToCmd(PrintPicture.bitmapToBWPix(image), width, 0);
+                }
+                return null;
+            }
+        };
+    }
+
+    private static GoldenCase escStar(String name, final ArgbImage image, int dots, int outputBytes) {
+        final int width = image.getWidth();
+        return new GoldenCase(name, EXACT, false, width, 2L * dots + dots / 8 + outputBytes + SLACK, outputBytes) {
+            @Override
+            byte[] run() {
+                byte[] packed = RasterCommands.pack(Dither.toBWPix(image, 0, Dither.THRESHOLD, false));
+                return RasterCommands.bitImageBands(packed, width, 0);
+            }
+        };
+    }
+
+    // the TSC BITMAP payload of TscCommand, which dithered with the 16x16 matrix from the start
+    private static GoldenCase tsc(String name, final ArgbImage image, int dots) {
+        return new GoldenCase(name, PACKED_INVERTED, true, image.getWidth(), dots + dots / 8 + SLACK, dots / 8) {
+            @Override
+            byte[] run() {
+                return RasterCommands.packInverted(Dither.toBWPix(image, 0, Dither.ORDERED, false));
+            }
+
+            @Override
+            byte[] baseline() {
+                return PrintPicture.pixToTscCmd(PrintPicture.bitmapToBWPix(image));
+            }
+        };
+    }
+
+    // pre-packed 1-bit data with a 16 dot left margin, as printPic takes it with the packed option
+    private static GoldenCase packed(String name, ArgbImage image) {
+        final int width = image.getWidth();
+        final byte[] packed = RasterCommands.pack(Dither.toBWPix(image, 0, Dither.THRESHOLD, false));
+        int outputBytes = image.getHeight() * (8 + 2 + width / 8);
+        return new GoldenCase(name, EXACT, false, width, outputBytes + SLACK, outputBytes) {
+            @Override
+            byte[] run() {
+                return RasterCommands.rasterLinesPacked(packed, width, 16, 0);
+            }
+        };
+    }
+
+    private static GoldenCase columns(String name, final ArgbImage image, int dots) {
+        return new GoldenCase(name, NV_COLUMNS, true, image.getWidth(), 2L * dots + dots / 8 + SLACK, 4 + dots / 8) {
+            @Override
+            byte[] run() {
+                return RasterCommands.columns(Dither.toBWPix(image, 0, Dither.THRESHOLD, false), image.getWidth(), image.getHeight());
+            }
+
+            @Override
+            byte[] baseline() {
+                return PrintPicture.pixToEscNvBitImageCmd(PrintPicture.thresholdToBWPic(image), image.getWidth(), image.getHeight());
+            }
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package cn.jystudio.bluetooth.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs every {@link GoldenCase}, compares its output with the golden file and checks its budgets
+ * on output size and bytes allocated by the calling thread. Exits with status 1 on any mismatch or
+ * exceeded budget. Time is measured by the JMH benchmarks, against budgets.txt.
+ * <p>
+ * Usage: {@code GoldenCheck <golden file> [--record]}, where --record adds the golden lines of new
+ * cases. An existing line is never replaced: the golden output of a case with a baseline is the
+ * output of the first release's encoders, checked again on every run, and that of a newer feature
+ * is recorded once from its first implementation.
+ * <p>
+ * Each line of the golden file is {@code name size sha256}, followed for text and raster cases by
+ * the sha256 of what the output prints, and for rasters by the {@code WxH} size of the raster and
+ * its black dot density per 16x16 block, one hex byte per block. Output with other bytes passes when
+ * it prints the same, or for a lossy case when no block moves by more than {@link #MAX_BLOCK_DIFF}
+ * and the mean change stays under {@link #MAX_MEAN_DIFF}.
+ */
+public class GoldenCheck {
+    private static final int BLOCK = 16;
+    private static final int MAX_BLOCK_DIFF = 48;
+    private static final double MAX_MEAN_DIFF = 4;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 3;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: GoldenCheck <golden file> [--record]");
+            System.exit(2);
+        }
+        File file = new File(args[0]);
+        boolean record = args.length > 1 && "--record".equals(args[1]);
+        Map<String, String> golden = read(file);
+
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        int failures = 0;
+        int recorded = 0;
+        StringBuilder lines = new StringBuilder();
+        lines.append("# golden output of GoldenCase, add new cases with: gradle -p android/benchmark golden -Pgolden.record\n");
+        System.out.println(String.format("%-34s %9s %11s  %s", "case", "bytes", "alloc", "result"));
+        for (GoldenCase c : GoldenCase.all()) {
+            byte[] output = c.run();
+            for (int i = 1; i < WARMUP_RUNS; ++i) {
+                c.run();
+            }
+            long allocated = Long.MAX_VALUE;
+            for (int i = 0; i < MEASURED_RUNS && threads != null; ++i) {
+                long bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+                c.run();
+                allocated = Math.min(allocated, threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes);
+            }
+
+            StringBuilder result = new StringBuilder();
+            String line = describe(c, output);
+            byte[] baseline = c.baseline();
+            String expected = golden.get(c.name);
+            if (expected == null && record) {
+                expected = baseline != null ? describe(c, baseline) : line;
+                recorded++;
+            }
+            if (expected == null) {
+                result.append("no golden output, record it with -Pgolden.record; ");
+            } else {
+                if (baseline != null && !expected.equals(describe(c, baseline))) {
+                    result.append("golden line is not the baseline output; ");
+                }
+                compare(c, line, expected, result);
+                lines.append(expected).append('\n');
+            }
+            if (output.length > c.maxOutputBytes) {
+                result.append("output over ").append(c.maxOutputBytes).append(" bytes; ");
+            }
+            if (threads != null && allocated > c.maxAllocatedBytes) {
+                result.append("allocation over ").append(c.maxAllocatedBytes).append(" bytes; ");
+            }
+            if (result.length() > 0) {
+                failures++;
+            }
+            System.out.println(String.format("%-34s %9d %11s  %s", c.name, output.length,
+                    threads == null ? "-" : String.valueOf(allocated), result.length() == 0 ? "ok" : result.toString()));
+        }
+
+        if (recorded > 0) {
+            write(file, lines.toString());
+            System.out.println("recorded " + recorded + " new case(s) in " + file);
+        }
+        if (threads == null) {
+            System.out.println("allocation budgets not checked, this JVM cannot count allocated bytes per thread");
+        }
+        if (failures > 0) {
+            System.out.println(failures + " case(s) failed");
+            System.exit(1);
+        }
+    }
+
+    private static void compare(GoldenCase c, String line, String expected, StringBuilder result) {
+        String[] got = line.split(" ");
+        String[] want = expected.split(" ");
+        if (got[2].equals(want[2])) {
+            return;
+        }
+        if (c.decode == GoldenCase.EXACT || want.length < 4) {
+            result.append("bytes differ from golden (").append(want[1]).append(" -> ").append(got[1]).append(" bytes); ");
+            return;
+        }
+        if (got[3].equals(want[3])) {
+            return;
+        }
+        if (!c.isRaster()) {
+            result.append("printed text differs from golden; ");
+            return;
+        }
+        if (!got[4].equals(want[4])) {
+            result.append("raster size differs from golden (").append(want[4]).append(" -> ").append(got[4]).append("); ");
+            return;
+        }
+        if (!c.lossy) {
+            result.append("dots differ from golden; ");
+            return;
+        }
+        int worst = 0;
+        long total = 0;
+        int blocks = want[5].length() / 2;
+        for (int i = 0; i < blocks; ++i) {
+            int a = Integer.parseInt(want[5].substring(2 * i, 2 * i + 2), 16);
+            int b = Integer.parseInt(got[5].substring(2 * i, 2 * i + 2), 16);
+            worst = Math.max(worst, Math.abs(a - b));
+            total += Math.abs(a - b);
+        }
+        double mean = (double) total / blocks;
+        if (worst > MAX_BLOCK_DIFF || mean > MAX_MEAN_DIFF) {
+            result.append(String.format("raster differs from golden (block max %d, mean %.2f); ", worst, mean));
+        }
+    }
+
+    private static String describe(GoldenCase c, byte[] output) throws NoSuchAlgorithmException {
+        StringBuilder line = new StringBuilder();
+        line.append(c.name).append(' ').append(output.length).append(' ').append(sha256(output));
+        byte[] printed = c.printed(output);
+        if (printed != null) {
+            line.append(' ').append(sha256(printed));
+            if (c.isRaster()) {
+                int height = printed.length / c.width;
+                line.append(' ').append(c.width).append('x').append(height).append(' ').append(hex(density(printed, c.width, height)));
+            }
+        }
+        return line.toString();
+    }
+
+    private static String sha256(byte[] data) throws NoSuchAlgorithmException {
+        return hex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    // black dots per BLOCK x BLOCK block, scaled to 0..255
+    static byte[] density(byte[] dots, int width, int height) {
+        int columns = (width + BLOCK - 1) / BLOCK;
+        int rows = (height + BLOCK - 1) / BLOCK;
+        byte[] density = new byte[columns * rows];
+        for (int by = 0; by < rows; ++by) {
+            for (int bx = 0; bx < columns; ++bx) {
+                int black = 0, area = 0;
+                for (int y = by * BLOCK; y < Math.min(height, by * BLOCK + BLOCK); ++y) {
+                    for (int x = bx * BLOCK; x < Math.min(width, bx * BLOCK + BLOCK); ++x) {
+                        black += dots[y * width + x];
+                        area++;
+                    }
+                }
+                density[by * columns + bx] = (byte) (black * 255 / area);
+            }
+        }
+        return density;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder s = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            s.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+        }
+        return s.toString();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        } catch (ClassCastException e) {
+            // not a HotSpot based JVM
+        } catch (NoClassDefFoundError e) {
+            // same
+        }
+        return null;
+    }
+
+    private static Map<String, String> read(File file) throws IOException {
+        Map<String, String> golden = new LinkedHashMap<String, String>();
+        if (!file.isFile()) {
+            return golden;
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.length() > 0 && !line.startsWith("#")) {
+                    golden.put(line.substring(0, line.indexOf(' ')), line);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return golden;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package cn.jystudio.bluetooth.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * What a text job prints: its characters, each run preceded by the text modes in effect, and its
+ * feeds and cuts. Two jobs with the same printed text print the same receipt, whatever mode commands
+ * they repeat or leave out.
+ */
+class PrintedText {
+    private static final int ALIGN = 0;
+    private static final int BOLD = 1;
+    private static final int DOUBLE_STRIKE = 2;
+    private static final int SIZE = 3;
+    private static final int CODE_PAGE = 4;
+    private static final int FONT = 5;
+    private static final int UNDERLINE = 6;
+    private static final int LINE_SPACING = 7;
+
+    /**
+     * The printed text of an ESC/POS job, as one byte per character with mode and command markers.
+     *
+     * @throws IllegalStateException on a command this decoder does not know
+     */
+    static byte[] decode(byte[] data) {
+        StringBuilder printed = new StringBuilder(data.length);
+        // ESC @ defaults; the code page and line spacing it restores depend on the printer
+        int[] defaults = {0, 0, 0, 0, -1, 0, 0, -1};
+        int[] modes = defaults.clone();
+        int[] shown = null;
+        int i = 0;
+        while (i < data.length) {
+            int b = data[i] & 255;
+            if (b == 0x1b) {
+                int c = at(data, i + 1);
+                switch (c) {
+                    case '@':
+                        modes = defaults.clone();
+                        printed.append("\u0000@");
+                        i += 2;
+                        continue;
+                    case '2':
+                        modes[LINE_SPACING] = -1;
+                        i += 2;
+                        continue;
+                    case 'a':
+                        modes[ALIGN] = at(data, i + 2) % 48;
+                        break;
+                    case 'E':
+                        modes[BOLD] = at(data, i + 2) & 1;
+                        break;
+                    case 'G':
+                        modes[DOUBLE_STRIKE] = at(data, i + 2) & 1;
+                        break;
+                    case 't':
+                        modes[CODE_PAGE] = at(data, i + 2);
+                        break;
+                    case 'M':
+                        modes[FONT] = at(data, i + 2) % 48;
+                        break;
+                    case '-':
+                        modes[UNDERLINE] = at(data, i + 2) % 48;
+                        break;
+                    case '3':
+                        modes[LINE_SPACING] = at(data, i + 2);
+                        break;
+                    case 'J':
+                    case 'd':
+                        printed.append('\u0000').append((char) c).append(at(data, i + 2));
+                        break;
+                    default:
+                        throw new IllegalStateException("unknown command ESC " + c + " at " + i);
+                }
+                i += 3;
+            } else if (b == 0x1d) {
+                int c = at(data, i + 1);
+                if (c == '!') {
+                    modes[SIZE] = at(data, i + 2);
+                    i += 3;
+                } else if (c == 'V') {
+                    int m = at(data, i + 2);
+                    int length = m == 65 || m == 66 ? 4 : 3;
+                    printed.append("\u0000V").append(m);
+                    if (length == 4) {
+                        printed.append(',').append(at(data, i + 3));
+                    }
+                    i += length;
+                } else {
+                    throw new IllegalStateException("unknown command GS " + c + " at " + i);
+                }
+            } else if (b < 0x20 && b != '\n' && b != '\r') {
+                throw new IllegalStateException("unknown control " + b + " at " + i);
+            } else {
+                if (shown == null || !Arrays.equals(shown, modes)) {
+                    shown = modes.clone();
+                    printed.append('\u0000').append(Arrays.toString(shown));
+                }
+                printed.append((char) b);
+                i++;
+            }
+        }
+        byte[] bytes = new byte[printed.length()];
+        for (int k = 0; k < bytes.length; ++k) {
+            bytes[k] = (byte) printed.charAt(k);
+        }
+        return bytes;
+    }
+
+    private static int at(byte[] data, int i) {
+        if (i >= data.length) {
+            throw new IllegalStateException("command cut short at " + i);
+        }
+        return data[i] & 255;
+    }
+}
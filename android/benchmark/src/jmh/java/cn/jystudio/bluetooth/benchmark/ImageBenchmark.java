@@ -0,0 +1,89 @@
+package cn.jystudio.bluetooth.benchmark;
+
+import cn.jystudio.bluetooth.raster.ArgbImage;
+import cn.jystudio.bluetooth.raster.Dither;
+import cn.jystudio.bluetooth.raster.RasterCommands;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Image to printer bytes, from pixels already scaled to the paper width, the way
+ * {@code PrintPicture} and {@code TscCommand.bitmapToRaster} drive the raster core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ImageBenchmark {
+    @Param({"384", "576"})
+    public int width;
+
+    @Param({Corpus.PHOTO, Corpus.LOGO, Corpus.LABEL, Corpus.RECEIPT})
+    public String image;
+
+    @Param({"0", "1", "2"})
+    public int dither;
+
+    @Param({"true"})
+    public boolean parallel;
+
+    private ArgbImage source;
+    private byte[] dots;
+
+    @Setup
+    public void setUp() {
+        source = Corpus.image(image, width);
+        dots = Dither.toBWPix(source, 0, dither, parallel);
+    }
+
+    @Benchmark
+    public byte[] toDots() {
+        return Dither.toBWPix(source, 0, dither, parallel);
+    }
+
+    /**
+     * printPic with the default GS v 0 raster format.
+     */
+    @Benchmark
+    public byte[] gsV0() {
+        return RasterCommands.rasterLines(Dither.toBWPix(source, 0, dither, parallel), width, 0, parallel);
+    }
+
+    /**
+     * printPic under a printer profile that asks for ESC * columns.
+     */
+    @Benchmark
+    public byte[] escStar() {
+        byte[] packed = RasterCommands.pack(Dither.toBWPix(source, 0, dither, parallel));
+        return RasterCommands.bitImageBands(packed, width, 0);
+    }
+
+    /**
+     * The payload of a TSC BITMAP command.
+     */
+    @Benchmark
+    public byte[] tscBitmap() {
+        return RasterCommands.packInverted(Dither.toBWPix(source, 0, dither, parallel));
+    }
+
+    @Benchmark
+    public byte[] gsV0FromDots() {
+        return RasterCommands.rasterLines(dots, width, 0, parallel);
+    }
+
+    @Benchmark
+    public byte[] escStarFromDots() {
+        return RasterCommands.bitImageBands(RasterCommands.pack(dots), width, 0);
+    }
+}
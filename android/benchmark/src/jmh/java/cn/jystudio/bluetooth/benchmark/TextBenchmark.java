@@ -0,0 +1,48 @@
+package cn.jystudio.bluetooth.benchmark;
+
+import cn.jystudio.bluetooth.escpos.command.sdk.PrinterCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text commands of a whole receipt, the calls printText makes for each line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TextBenchmark {
+    @Param({"GBK", "UTF-8", "Cp437"})
+    public String encoding;
+
+    private final String[] lines = Corpus.receiptLines();
+    private final CharSequence[][] rows = Corpus.orderRows();
+
+    @Benchmark
+    public void printText(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(PrinterCommand.POS_Print_Text(line + "\n", encoding, 0, 0, 0, 0));
+        }
+    }
+
+    @Benchmark
+    public byte[] receiptJob() {
+        return Corpus.receiptJob(lines, encoding);
+    }
+
+    @Benchmark
+    public byte[] table() {
+        return Corpus.tableJob(rows, encoding);
+    }
+}
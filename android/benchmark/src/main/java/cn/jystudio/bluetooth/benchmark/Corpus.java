@@ -0,0 +1,213 @@
+package cn.jystudio.bluetooth.benchmark;
+
+import cn.jystudio.bluetooth.escpos.command.sdk.EscPosWriter;
+import cn.jystudio.bluetooth.escpos.command.sdk.PrinterCommand;
+import cn.jystudio.bluetooth.escpos.command.sdk.TableLayout;
+import cn.jystudio.bluetooth.raster.ArgbImage;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+
+/**
+ * Fixed benchmark inputs, generated from constant seeds so every run and every machine
+ * measures the same pixels and the same text.
+ */
+class Corpus {
+    static final String PHOTO = "photo";
+    static final String LOGO = "logo";
+    static final String LABEL = "label";
+    static final String RECEIPT = "receipt";
+
+    // columns of the order table, 32 cells for a 58 mm printer
+    static final int[] ORDER_WIDTHS = {18, 4, 10};
+    static final int[] ORDER_ALIGNS = {TableLayout.ALIGN_LEFT, TableLayout.ALIGN_CENTER, TableLayout.ALIGN_RIGHT};
+    private static final int WHITE = 0xffffffff;
+    private static final int BLACK = 0xff000000;
+
+    /**
+     * An image already scaled to {@code width} dots, as the printer modules pass it to the core.
+     */
+    static ArgbImage image(String kind, int width) {
+        if (PHOTO.equals(kind)) {
+            return photo(width, width * 3 / 4);
+        } else if (LOGO.equals(kind)) {
+            return logo(width, width / 3);
+        } else if (LABEL.equals(kind)) {
+            return label(width, width * 2 / 3);
+        } else if (RECEIPT.equals(kind)) {
+            return receipt(width, width * 3);
+        }
+        throw new IllegalArgumentException(kind);
+    }
+
+    // smooth gradients with sensor-like noise, the worst case for dithering
+    private static ArgbImage photo(int width, int height) {
+        Random random = new Random(1);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                double dx = x - width * 0.4, dy = y - height * 0.5;
+                double d = Math.sqrt(dx * dx + dy * dy) / width;
+                int r = clamp((int) (200 - 180 * d + 40 * Math.sin(x * 0.05)) + random.nextInt(17) - 8);
+                int g = clamp((int) (160 - 120 * d + 40 * Math.cos(y * 0.03)) + random.nextInt(17) - 8);
+                int b = clamp((int) (120 + 100 * d) + random.nextInt(17) - 8);
+                pixels[y * width + x] = 0xff000000 | r << 16 | g << 8 | b;
+            }
+        }
+        return new ArgbImage(pixels, width, height);
+    }
+
+    // flat shapes on a transparent background
+    private static ArgbImage logo(int width, int height) {
+        int[] pixels = new int[width * height];
+        int cx = height / 2, cy = height / 2, r = height * 2 / 5;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int dx = x - cx, dy = y - cy;
+                int d2 = dx * dx + dy * dy;
+                int c = 0x00ffffff;
+                if (d2 < r * r && d2 > (r - 6) * (r - 6)) {
+                    c = BLACK;
+                } else if (d2 <= (r - 6) * (r - 6)) {
+                    c = 0xffd04020;
+                } else if (x > height && x < width - 8 && y > height / 3 && y < height * 2 / 3 && (x / 12) % 3 != 2) {
+                    c = 0xff202020;
+                }
+                pixels[y * width + x] = c;
+            }
+        }
+        return new ArgbImage(pixels, width, height);
+    }
+
+    // bars and blocks, black and white only
+    private static ArgbImage label(int width, int height) {
+        Random random = new Random(2);
+        int[] bars = new int[width];
+        for (int x = 16; x < width - 16; ) {
+            int w = 2 + random.nextInt(6);
+            boolean black = random.nextBoolean();
+            for (int i = 0; i < w && x < width - 16; ++i, ++x) {
+                bars[x] = black ? BLACK : WHITE;
+            }
+        }
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int c = WHITE;
+                if (y < height / 2) {
+                    c = bars[x] == 0 ? WHITE : bars[x];
+                } else if ((x / 8 + y / 8) % 5 == 0 && y % 8 < 6) {
+                    c = BLACK;
+                }
+                pixels[y * width + x] = c;
+            }
+        }
+        return new ArgbImage(pixels, width, height);
+    }
+
+    // a rendered receipt: mostly white with rows of glyph-sized marks
+    private static ArgbImage receipt(int width, int height) {
+        Random random = new Random(3);
+        int[] pixels = new int[width * height];
+        java.util.Arrays.fill(pixels, WHITE);
+        for (int line = 0; line * 32 + 24 < height; ++line) {
+            int length = width / 2 + random.nextInt(width / 2 - 16);
+            for (int x = 8; x < length; x += 12) {
+                if (random.nextInt(6) == 0) {
+                    continue;
+                }
+                long glyph = random.nextLong();
+                for (int y = 0; y < 24; ++y) {
+                    for (int i = 0; i < 10; ++i) {
+                        if ((glyph >>> ((y * 10 + i) % 64) & 1) != 0) {
+                            pixels[(line * 32 + y) * width + x + i] = BLACK;
+                        }
+                    }
+                }
+            }
+        }
+        return new ArgbImage(pixels, width, height);
+    }
+
+    /**
+     * The text lines of a restaurant receipt, mixing CJK and ASCII.
+     */
+    static String[] receiptLines() {
+        return new String[]{
+                "欢迎光临 Welcome",
+                "单号: 2024-0618-000123",
+                "桌号: A12    人数: 4",
+                "--------------------------------",
+                "宫保鸡丁            1    38.00",
+                "鱼香肉丝            1    32.00",
+                "Fried rice          2    24.00",
+                "Iced lemon tea      4    40.00",
+                "麻婆豆腐            1    22.00",
+                "米饭                4     8.00",
+                "--------------------------------",
+                "合计 Total:               164.00",
+                "实收 Paid:                200.00",
+                "找零 Change:               36.00",
+                "谢谢惠顾，欢迎再次光临！",
+                "Thank you, please come again!",
+        };
+    }
+
+    /**
+     * The receipt as one job: init, alignment and style changes, text, then a single array to send.
+     */
+    static byte[] receiptJob(String[] lines, String encoding) {
+        EscPosWriter job = new EscPosWriter();
+        job.init();
+        try {
+            for (int i = 0; i < lines.length; ++i) {
+                boolean title = i == 0 || i == lines.length - 2;
+                job.align(title ? 1 : 0).bold(title ? 1 : 0);
+                PrinterCommand.POS_Print_Text(job, lines[i] + "\n", encoding, 0, title ? 1 : 0, title ? 1 : 0, 0);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException(encoding, e);
+        }
+        return job.feed(64).cut(1).toByteArray();
+    }
+
+    /**
+     * Item rows of a 40 line order for printTable: name, quantity and amount, some names long
+     * enough to wrap.
+     */
+    static CharSequence[][] orderRows() {
+        String[] names = {"宫保鸡丁", "Fried rice with egg and shrimp", "鱼香肉丝", "Iced lemon tea",
+                "麻婆豆腐（微辣）", "米饭", "Hot and sour soup", "北京烤鸭半只配荷叶饼和甜面酱"};
+        Random random = new Random(5);
+        CharSequence[][] rows = new CharSequence[40][];
+        for (int i = 0; i < rows.length; ++i) {
+            int quantity = 1 + random.nextInt(4);
+            int cents = quantity * (800 + random.nextInt(5000));
+            rows[i] = new CharSequence[]{names[i % names.length], Integer.toString(quantity),
+                    cents / 100 + "." + (cents % 100 < 10 ? "0" : "") + cents % 100};
+        }
+        return rows;
+    }
+
+    /**
+     * The rows as printTable sends them: laid out in one buffer and encoded as one text job.
+     */
+    static byte[] tableJob(CharSequence[][] rows, String encoding) {
+        TableLayout layout = new TableLayout(ORDER_WIDTHS, ORDER_ALIGNS);
+        StringBuilder table = new StringBuilder(rows.length * (layout.width() + 2));
+        for (CharSequence[] row : rows) {
+            layout.appendRow(row, table);
+        }
+        EscPosWriter job = new EscPosWriter(table.length() * 2 + 16);
+        try {
+            PrinterCommand.POS_Print_Text(job, table, encoding, 0, 0, 0, 0);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException(encoding, e);
+        }
+        return job.toByteArray();
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : v > 255 ? 255 : v;
+    }
+}
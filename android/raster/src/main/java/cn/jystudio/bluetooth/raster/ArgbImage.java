@@ -0,0 +1,34 @@
+package cn.jystudio.bluetooth.raster;
+
+/**
+ * {@link RowSource} over ARGB pixels stored row after row in an int array.
+ */
+public class ArgbImage implements RowSource {
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+
+    public ArgbImage(int[] pixels, int width, int height) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("need " + width * height + " pixels, got " + pixels.length);
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void readRow(int y, int[] argb) {
+        System.arraycopy(pixels, y * width, argb, 0, width);
+    }
+}
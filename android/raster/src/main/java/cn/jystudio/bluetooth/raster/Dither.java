@@ -0,0 +1,124 @@
+package cn.jystudio.bluetooth.raster;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Luma to one byte per dot, 1 for a black dot.
+ * <p>
+ * Large images are processed in row strips, see {@link RasterStrips}. Each error-diffusion strip
+ * first diffuses the {@link RasterStrips#SEED_ROWS} rows above it, so the output depends on the
+ * image size only, never on the number of threads.
+ */
+public class Dither {
+    // mean luma as the threshold
+    public static final int THRESHOLD = 0;
+    public static final int ORDERED = 1;
+    public static final int FLOYD_STEINBERG = 2;
+    public static final int ATKINSON = 3;
+    public static final int STUCKI = 4;
+
+    private static final int[][] BAYER_16X16 = new int[][]{{0, 128, 32, 160, 8, 136, 40, 168, 2, 130, 34, 162, 10, 138, 42, 170}, {192, 64, 224, 96, 200, 72, 232, 104, 194, 66, 226, 98, 202, 74, 234, 106}, {48, 176, 16, 144, 56, 184, 24, 152, 50, 178, 18, 146, 58, 186, 26, 154}, {240, 112, 208, 80, 248, 120, 216, 88, 242, 114, 210, 82, 250, 122, 218, 90}, {12, 140, 44, 172, 4, 132, 36, 164, 14, 142, 46, 174, 6, 134, 38, 166}, {204, 76, 236, 108, 196, 68, 228, 100, 206, 78, 238, 110, 198, 70, 230, 102}, {60, 188, 28, 156, 52, 180, 20, 148, 62, 190, 30, 158, 54, 182, 22, 150}, {252, 124, 220, 92, 244, 116, 212, 84, 254, 126, 222, 94, 246, 118, 214, 86}, {3, 131, 35, 163, 11, 139, 43, 171, 1, 129, 33, 161, 9, 137, 41, 169}, {195, 67, 227, 99, 203, 75, 235, 107, 193, 65, 225, 97, 201, 73, 233, 105}, {51, 179, 19, 147, 59, 187, 27, 155, 49, 177, 17, 145, 57, 185, 25, 153}, {243, 115, 211, 83, 251, 123, 219, 91, 241, 113, 209, 81, 249, 121, 217, 89}, {15, 143, 47, 175, 7, 135, 39, 167, 13, 141, 45, 173, 5, 133, 37, 165}, {207, 79, 239, 111, 199, 71, 231, 103, 205, 77, 237, 109, 197, 69, 229, 101}, {63, 191, 31, 159, 55, 183, 23, 151, 61, 189, 29, 157, 53, 181, 21, 149}, {254, 127, 223, 95, 247, 119, 215, 87, 253, 125, 221, 93, 245, 117, 213, 85}};
+
+    /**
+     * Convert an image to dots.
+     *
+     * @param leftPadding white columns added on the left
+     * @param dither      one of the constants of this class
+     * @param parallel    whether large images may be split over a thread pool
+     * @return {@code (width + leftPadding) * height} bytes
+     */
+    public static byte[] toBWPix(final RowSource image, final int leftPadding, int dither, boolean parallel) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int stride = width + leftPadding;
+        final ErrorDiffusion.Kernel kernel = kernel(dither);
+        if (dither != ORDERED && kernel == null) {
+            // the mean threshold needs the luma of the whole image first
+            return threshold(Luma.toLuma(image, leftPadding, parallel), stride, height, parallel);
+        }
+
+        final boolean split = RasterStrips.worthSplitting(width, height);
+        final byte[] data = new byte[stride * height];
+        RasterStrips.run(width, height, parallel, new RasterStrips.Strip() {
+            @Override
+            public void run(int from, int to) {
+                int[] row = new int[width];
+                byte[] luma = new byte[width];
+                ErrorDiffusion diffusion = null;
+                byte[] seed = null;
+                int y = from;
+                if (kernel != null) {
+                    diffusion = new ErrorDiffusion(kernel, width);
+                    if (split) {
+                        seed = new byte[width];
+                        y = Math.max(0, from - RasterStrips.SEED_ROWS);
+                    }
+                }
+                for (; y < to; ++y) {
+                    image.readRow(y, row);
+                    Luma.argbToLuma(row, 0, luma, 0, width);
+                    if (diffusion == null) {
+                        ordered(luma, width, y, data, y * stride + leftPadding);
+                    } else if (y < from) {
+                        diffusion.ditherRow(luma, 0, seed, 0);
+                    } else {
+                        diffusion.ditherRow(luma, 0, data, y * stride + leftPadding);
+                    }
+                }
+            }
+        });
+        return data;
+    }
+
+    /**
+     * Threshold a luma plane at its mean.
+     */
+    public static byte[] threshold(final byte[] luma, final int width, int height, boolean parallel) {
+        final byte[] data = new byte[width * height];
+        final AtomicLong total = new AtomicLong();
+        RasterStrips.run(width, height, parallel, new RasterStrips.Strip() {
+            @Override
+            public void run(int from, int to) {
+                long sum = 0;
+                for (int k = from * width, end = to * width; k < end; ++k) {
+                    sum += luma[k] & 255;
+                }
+                total.addAndGet(sum);
+            }
+        });
+
+        final int average = (int) (total.get() / ((long) width * height));
+        RasterStrips.run(width, height, parallel, new RasterStrips.Strip() {
+            @Override
+            public void run(int from, int to) {
+                for (int k = from * width, end = to * width; k < end; ++k) {
+                    // 1 when gray <= average, without a branch
+                    data[k] = (byte) ((average - (luma[k] & 255)) >>> 31 ^ 1);
+                }
+            }
+        });
+        return data;
+    }
+
+    /**
+     * The error-diffusion kernel of {@code dither}, null for the other methods.
+     */
+    public static ErrorDiffusion.Kernel kernel(int dither) {
+        switch (dither) {
+            case FLOYD_STEINBERG:
+                return ErrorDiffusion.Kernel.FLOYD_STEINBERG;
+            case ATKINSON:
+                return ErrorDiffusion.Kernel.ATKINSON;
+            case STUCKI:
+                return ErrorDiffusion.Kernel.STUCKI;
+            default:
+                return null;
+        }
+    }
+
+    private static void ordered(byte[] luma, int width, int y, byte[] out, int offset) {
+        for (int x = 0; x < width; ++x) {
+            out[offset + x] = (byte) ((luma[x] & 255) > BAYER_16X16[x & 15][y & 15] ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package cn.jystudio.bluetooth.raster;
+
+import java.util.Arrays;
+
+/**
+ * Error-diffusion dithering of a luma plane, one row at a time.
+ * <p>
+ * Only the rows the kernel reaches are kept (two or three int error rows), so an image
+ * can be fed in bands of any height. An instance is not thread-safe; call {@link #reset()}
+ * before starting a new image with the same instance.
+ */
+public class ErrorDiffusion {
+
+    public static enum Kernel {
+        //            x+1 x+2 | x-2 x-1  x  x+1 x+2 | x-2 x-1  x  x+1 x+2
+        FLOYD_STEINBERG(16, new int[]{7, 0, 0, 3, 5, 1, 0, 0, 0, 0, 0, 0}),
+        ATKINSON(8, new int[]{1, 1, 0, 1, 1, 1, 0, 0, 0, 1, 0, 0}),
+        STUCKI(42, new int[]{8, 4, 2, 4, 8, 4, 2, 1, 2, 4, 2, 1});
+
+        private Kernel(int divisor, int[] weights) {
+            this.divisor = divisor;
+            this.weights = weights;
+        }
+
+        private final int divisor;
+        private final int[] weights;
+
+        int rows() {
+            for (int i = 7; i < 12; ++i) {
+                if (weights[i] != 0) return 3;
+            }
+            return 2;
+        }
+    }
+
+    // margin on both sides of an error row so edge taps need no bounds check
+    private static final int MARGIN = 2;
+
+    private final int width;
+    private final int stride;
+    private final int rows;
+    // rows of errors back to back, kept as 16.16 fixed point so any divisor is a multiply and a shift
+    private final int[] errors;
+    private final int[] dx;
+    private final int[] dy;
+    private final int[] w;
+    private final int[] tapOffset;
+    private int current = 0;
+
+    public ErrorDiffusion(Kernel kernel, int width) {
+        this.width = width;
+        this.stride = width + MARGIN * 2;
+        this.rows = kernel.rows();
+        this.errors = new int[rows * stride];
+
+        int taps = 0;
+        for (int weight : kernel.weights) {
+            if (weight != 0) taps++;
+        }
+        dx = new int[taps];
+        dy = new int[taps];
+        w = new int[taps];
+        tapOffset = new int[taps];
+        int t = 0;
+        for (int i = 0; i < kernel.weights.length; ++i) {
+            if (kernel.weights[i] == 0) continue;
+            if (i < 2) {
+                dy[t] = 0;
+                dx[t] = i + 1;
+            } else {
+                dy[t] = (i - 2) / 5 + 1;
+                dx[t] = (i - 2) % 5 - 2;
+            }
+            w[t] = (kernel.weights[i] * 65536 + kernel.divisor / 2) / kernel.divisor;
+            t++;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Forget the error carried over from previous rows.
+     */
+    public void reset() {
+        Arrays.fill(errors, 0);
+        current = 0;
+    }
+
+    /**
+     * Dither one row.
+     *
+     * @param luma    luma row, 0 black ~ 255 white
+     * @param lumaOff offset of the row in {@code luma}
+     * @param out     one byte per pixel, 1 for a black dot
+     * @param outOff  offset of the row in {@code out}
+     */
+    public void ditherRow(byte[] luma, int lumaOff, byte[] out, int outOff) {
+        final int[] errors = this.errors;
+        final int[] w = this.w;
+        final int[] tapOffset = this.tapOffset;
+        final int taps = w.length;
+        final int base = current * stride + MARGIN;
+
+        for (int t = 0; t < taps; ++t) {
+            tapOffset[t] = ((current + dy[t]) % rows) * stride + MARGIN + dx[t];
+        }
+
+        for (int x = 0; x < width; ++x) {
+            int v = (luma[lumaOff + x] & 255) + ((errors[base + x] + 32768) >> 16);
+            int black = (v - 128) >>> 31;
+            out[outOff + x] = (byte) black;
+            // black prints as 0, white as 255
+            int err = v - ((black - 1) & 255);
+            for (int t = 0; t < taps; ++t) {
+                errors[tapOffset[t] + x] += err * w[t];
+            }
+        }
+
+        // the row just finished is recycled as the bottom row of the window
+        Arrays.fill(errors, current * stride, (current + 1) * stride, 0);
+        current = (current + 1) % rows;
+    }
+
+    /**
+     * Dither a band of rows stored back to back.
+     */
+    public void dither(byte[] luma, int lumaOff, int count, byte[] out, int outOff) {
+        for (int y = 0; y < count; ++y) {
+            ditherRow(luma, lumaOff + y * width, out, outOff + y * width);
+        }
+    }
+}
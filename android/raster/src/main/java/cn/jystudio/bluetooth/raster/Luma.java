@@ -0,0 +1,88 @@
+package cn.jystudio.bluetooth.raster;
+
+import java.util.Arrays;
+
+/**
+ * ARGB to 8 bit luma, 0 black ~ 255 white.
+ */
+public class Luma {
+    // BT.601 luma weights scaled by 65536
+    private static final int LUMA_R = 19595;
+    private static final int LUMA_G = 38470;
+    private static final int LUMA_B = 7471;
+    // pixels at least this light count as blank margin
+    public static final int BLANK = 240;
+
+    /**
+     * Convert a run of ARGB pixels to luma with 16 bit fixed-point BT.601 weights,
+     * compositing transparent pixels over white.
+     */
+    public static void argbToLuma(int[] argb, int argbOff, byte[] luma, int lumaOff, int count) {
+        for (int i = 0; i < count; ++i) {
+            int c = argb[argbOff + i];
+            int y = (((c >> 16) & 255) * LUMA_R + ((c >> 8) & 255) * LUMA_G + (c & 255) * LUMA_B + 32768) >>> 16;
+            // y + (255 - y) * (255 - a) / 255, 0x8081 >>> 23 is an exact /255 for 16 bit operands
+            y += ((255 - y) * (255 - (c >>> 24)) * 0x8081) >>> 23;
+            luma[lumaOff + i] = (byte) y;
+        }
+    }
+
+    /**
+     * Luma plane of the whole image.
+     *
+     * @param leftPadding white columns added on the left
+     * @return {@code (width + leftPadding) * height} bytes
+     */
+    public static byte[] toLuma(final RowSource image, final int leftPadding, boolean parallel) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int stride = width + leftPadding;
+        final byte[] luma = new byte[stride * height];
+        RasterStrips.run(width, height, parallel, new RasterStrips.Strip() {
+            @Override
+            public void run(int from, int to) {
+                int[] row = new int[width];
+                for (int y = from; y < to; ++y) {
+                    int off = y * stride;
+                    Arrays.fill(luma, off, off + leftPadding, (byte) 255);
+                    image.readRow(y, row);
+                    argbToLuma(row, 0, luma, off + leftPadding, width);
+                }
+            }
+        });
+        return luma;
+    }
+
+    /**
+     * Bounding box of the pixels darker than {@link #BLANK}.
+     *
+     * @return {left, top, right, bottom}, right and bottom exclusive, or null for a blank image
+     */
+    public static int[] contentBounds(RowSource image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        byte[] luma = new byte[width];
+        int left = width, top = height, right = 0, bottom = 0;
+        for (int y = 0; y < height; ++y) {
+            image.readRow(y, row);
+            argbToLuma(row, 0, luma, 0, width);
+            int first = 0;
+            while (first < width && (luma[first] & 255) >= BLANK) {
+                first++;
+            }
+            if (first == width) {
+                continue;
+            }
+            int last = width - 1;
+            while ((luma[last] & 255) >= BLANK) {
+                last--;
+            }
+            left = Math.min(left, first);
+            right = Math.max(right, last + 1);
+            top = Math.min(top, y);
+            bottom = y + 1;
+        }
+        return left < right ? new int[]{left, top, right, bottom} : null;
+    }
+}
@@ -0,0 +1,220 @@
+package cn.jystudio.bluetooth.raster;
+
+/**
+ * Packs dots (one byte per dot, 1 for black) into printer bit images and command streams.
+ */
+public class RasterCommands {
+    private static final int[] p0 = new int[]{0, 128};
+    private static final int[] p1 = new int[]{0, 64};
+    private static final int[] p2 = new int[]{0, 32};
+    private static final int[] p3 = new int[]{0, 16};
+    private static final int[] p4 = new int[]{0, 8};
+    private static final int[] p5 = new int[]{0, 4};
+    private static final int[] p6 = new int[]{0, 2};
+
+    /**
+     * Pack 8 dots per byte, leftmost dot in the high bit, 1 for black.
+     * Rows must be a multiple of 8 dots wide.
+     */
+    public static byte[] pack(byte[] src) {
+        byte[] data = new byte[src.length / 8];
+        for (int i = 0, k = 0; i < data.length; ++i, k += 8) {
+            data[i] = (byte) (p0[src[k]] + p1[src[k + 1]] + p2[src[k + 2]] + p3[src[k + 3]] + p4[src[k + 4]] + p5[src[k + 5]] + p6[src[k + 6]] + src[k + 7]);
+        }
+        return data;
+    }
+
+    /**
+     * {@link #pack} with 0 for black, as TSC BITMAP wants it.
+     */
+    public static byte[] packInverted(byte[] src) {
+        byte[] data = new byte[src.length / 8];
+        for (int i = 0, k = 0; i < data.length; ++i, k += 8) {
+            data[i] = (byte) ~(p0[src[k]] + p1[src[k + 1]] + p2[src[k + 2]] + p3[src[k + 3]] + p4[src[k + 4]] + p5[src[k + 5]] + p6[src[k + 6]] + src[k + 7]);
+        }
+        return data;
+    }
+
+    /**
+     * One GS v 0 command per row.
+     *
+     * @param width dots per row, a multiple of 8
+     * @param mode  GS v 0 mode, 0 normal 1 double width 2 double height 3 both
+     */
+    public static byte[] rasterLines(final byte[] src, final int width, final int mode, boolean parallel) {
+        int height = src.length / width;
+        final int bytesPerLine = width / 8;
+        final byte[] data = new byte[height * (8 + bytesPerLine)];
+        RasterStrips.run(width, height, parallel, new RasterStrips.Strip() {
+            @Override
+            public void run(int from, int to) {
+                int k = from * width;
+                for (int i = from; i < to; ++i) {
+                    int off = rasterHeader(data, i * (8 + bytesPerLine), bytesPerLine, 1, mode);
+                    for (int j = 0; j < bytesPerLine; ++j, k += 8) {
+                        data[off + j] = (byte) (p0[src[k]] + p1[src[k + 1]] + p2[src[k + 2]] + p3[src[k + 3]] + p4[src[k + 4]] + p5[src[k + 5]] + p6[src[k + 6]] + src[k + 7]);
+                    }
+                }
+            }
+        });
+        return data;
+    }
+
+    /**
+     * One GS v 0 command per row of already packed data.
+     *
+     * @param packed      rows of {@code (width + 7) / 8} bytes, high bit first, 1 for black
+     * @param leftPadding white dots on the left, rounded up to 8
+     */
+    public static byte[] rasterLinesPacked(byte[] packed, int width, int leftPadding, int mode) {
+        int rowBytes = (width + 7) / 8;
+        int leftBytes = (leftPadding + 7) / 8;
+        int bytesPerLine = leftBytes + rowBytes;
+        int height = packed.length / rowBytes;
+        byte[] data = new byte[height * (8 + bytesPerLine)];
+        for (int i = 0; i < height; ++i) {
+            int off = rasterHeader(data, i * (8 + bytesPerLine), bytesPerLine, 1, mode);
+            System.arraycopy(packed, i * rowBytes, data, off + leftBytes, rowBytes);
+        }
+        return data;
+    }
+
+    /**
+     * GS v 0 commands of a 2D code straight from its modules, each module scaled up to
+     * {@code scale x scale} dots with no resampling and no thresholding. Every module row is a
+     * single command of {@code scale} identical rows, and so is each white margin.
+     *
+     * @param modules {@code columns * rows} bytes, 1 for a dark module
+     * @param left    white dots before the first module column
+     * @param top     white rows above the first module row
+     * @param width   dots per row, a multiple of 8, at least {@code left + columns * scale}
+     * @param height  rows in total, at least {@code top + rows * scale}
+     */
+    public static byte[] moduleRasterLines(byte[] modules, int columns, int rows, int scale,
+                                           int left, int top, int width, int height) {
+        int bytesPerLine = width / 8;
+        int bottom = height - top - rows * scale;
+        int commands = rows + (top > 0 ? 1 : 0) + (bottom > 0 ? 1 : 0);
+        byte[] data = new byte[commands * 8 + height * bytesPerLine];
+        int off = whiteLines(data, 0, bytesPerLine, top);
+        for (int y = 0; y < rows; ++y) {
+            int row = rasterHeader(data, off, bytesPerLine, scale, 0);
+            for (int x = 0; x < columns; ++x) {
+                if (modules[y * columns + x] == 1) {
+                    for (int d = left + x * scale, end = d + scale; d < end; ++d) {
+                        data[row + (d >> 3)] |= (byte) (128 >>> (d & 7));
+                    }
+                }
+            }
+            for (int i = 1; i < scale; ++i) {
+                System.arraycopy(data, row, data, row + i * bytesPerLine, bytesPerLine);
+            }
+            off = row + scale * bytesPerLine;
+        }
+        whiteLines(data, off, bytesPerLine, bottom);
+        return data;
+    }
+
+    private static int whiteLines(byte[] data, int off, int bytesPerLine, int lines) {
+        if (lines <= 0) {
+            return off;
+        }
+        return rasterHeader(data, off, bytesPerLine, lines, 0) + lines * bytesPerLine;
+    }
+
+    // GS v 0 m xL xH yL yH, returns where the row data goes
+    private static int rasterHeader(byte[] data, int off, int bytesPerLine, int lines, int mode) {
+        data[off] = 29;//GS
+        data[off + 1] = 118;//v
+        data[off + 2] = 48;//0
+        data[off + 3] = (byte) (mode & 3);
+        data[off + 4] = (byte) (bytesPerLine % 256);//xL
+        data[off + 5] = (byte) (bytesPerLine / 256);//xH
+        data[off + 6] = (byte) (lines % 256);//yL
+        data[off + 7] = (byte) (lines / 256);//yH
+        return off + 8;
+    }
+
+    /**
+     * Column-major bit image as defined by FS q and GS *: xL xH yL yH, then for each column
+     * {@code height / 8} bytes, top dot in the high bit. The header counts bytes, not dots.
+     *
+     * @param width  a multiple of 8
+     * @param height a multiple of 8
+     */
+    public static byte[] columns(byte[] src, int width, int height) {
+        byte[] data = new byte[src.length / 8 + 4];
+        data[0] = (byte) (width / 8 % 256);
+        data[1] = (byte) (width / 8 / 256);
+        data[2] = (byte) (height / 8 % 256);
+        data[3] = (byte) (height / 8 / 256);
+        for (int i = 0; i < width; ++i) {
+            for (int j = 0, k = i; j < height / 8; ++j, k += 8 * width) {
+                data[4 + j + i * height / 8] = (byte) (p0[src[k]] + p1[src[k + width]] + p2[src[k + 2 * width]] + p3[src[k + 3 * width]] + p4[src[k + 4 * width]] + p5[src[k + 5 * width]] + p6[src[k + 6 * width]] + src[k + 7 * width]);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * ESC * 24 dot double density bands: line spacing set to 24 dots, then per band
+     * ESC * 33 nL nH, 3 bytes per column (top dot in the high bit) and LF, then the default
+     * line spacing again. Columns come from the packed rows by 8x8 bit transposes.
+     *
+     * @param packed      rows of {@code (width + 7) / 8} bytes, high bit first, 1 for black
+     * @param leftPadding white columns on the left
+     */
+    public static byte[] bitImageBands(byte[] packed, int width, int leftPadding) {
+        int rowBytes = (width + 7) / 8;
+        int height = packed.length / rowBytes;
+        int columns = leftPadding + rowBytes * 8;
+        int bands = (height + 23) / 24;
+        int bandLength = 5 + columns * 3 + 1;
+        byte[] data = new byte[3 + bands * bandLength + 2];
+        data[0] = 27;//ESC
+        data[1] = 51;//3
+        data[2] = 24;
+        for (int b = 0; b < bands; ++b) {
+            int off = 3 + b * bandLength;
+            data[off] = 27;//ESC
+            data[off + 1] = 42;//*
+            data[off + 2] = 33;
+            data[off + 3] = (byte) (columns % 256);//nL
+            data[off + 4] = (byte) (columns / 256);//nH
+            int col = off + 5 + leftPadding * 3;
+            for (int g = 0; g < 3; ++g) {
+                int y0 = b * 24 + g * 8;
+                for (int bx = 0; bx < rowBytes; ++bx) {
+                    long block = 0;
+                    for (int r = 0; r < 8; ++r) {
+                        int y = y0 + r;
+                        block = (block << 8) | (y < height ? packed[y * rowBytes + bx] & 255 : 0);
+                    }
+                    block = transpose8x8(block);
+                    for (int c = 0; c < 8; ++c) {
+                        data[col + (bx * 8 + c) * 3 + g] = (byte) (block >>> (56 - 8 * c));
+                    }
+                }
+            }
+            data[off + bandLength - 1] = 10;//LF
+        }
+        data[data.length - 2] = 27;//ESC
+        data[data.length - 1] = 50;//2
+        return data;
+    }
+
+    /**
+     * Transpose an 8x8 bit matrix: byte i (from the high end) is row i, and becomes column i
+     * with row 0 in the high bit.
+     */
+    public static long transpose8x8(long x) {
+        long t;
+        t = (x ^ (x >>> 7)) & 0x00AA00AA00AA00AAL;
+        x = x ^ t ^ (t << 7);
+        t = (x ^ (x >>> 14)) & 0x0000CCCC0000CCCCL;
+        x = x ^ t ^ (t << 14);
+        t = (x ^ (x >>> 28)) & 0x00000000F0F0F0F0L;
+        x = x ^ t ^ (t << 28);
+        return x;
+    }
+}
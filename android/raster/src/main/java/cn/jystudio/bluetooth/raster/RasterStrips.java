@@ -0,0 +1,90 @@
+package cn.jystudio.bluetooth.raster;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs image conversion over row strips on a shared {@link ForkJoinPool}.
+ * <p>
+ * Strip boundaries depend only on the image height, never on the number of cores,
+ * so every stage gives the same bytes on every device.
+ */
+class RasterStrips {
+    static final int STRIP_ROWS = 64;
+    // rows an error-diffusion strip dithers above its first row to seed the carried error
+    static final int SEED_ROWS = 16;
+    // below this a single thread finishes before the pool is worth waking up
+    private static final int MIN_PARALLEL_PIXELS = 384 * 256;
+
+    interface Strip {
+        void run(int from, int to);
+    }
+
+    /**
+     * Decided by the image size alone, so the strip layout is the same on every device.
+     */
+    static boolean worthSplitting(int width, int height) {
+        return height >= STRIP_ROWS * 2 && (long) width * height >= MIN_PARALLEL_PIXELS;
+    }
+
+    /**
+     * Run {@code strip} over [0, rows) and wait for all strips to finish. Without {@code parallel},
+     * or on a single core, the same strips run one after another on the calling thread, without
+     * loading the fork/join classes, which Android only has from API 21.
+     */
+    static void forEach(int rows, boolean parallel, Strip strip) {
+        if (parallel && Runtime.getRuntime().availableProcessors() > 1) {
+            Parallel.invoke(rows, strip);
+            return;
+        }
+        // the leaves of the parallel split: STRIP_ROWS each, the last one taking the remainder
+        for (int from = 0, to; from < rows; from = to) {
+            to = rows - from < STRIP_ROWS * 2 ? rows : from + STRIP_ROWS;
+            strip.run(from, to);
+        }
+    }
+
+    /**
+     * Split only images {@link #worthSplitting worth splitting}, smaller ones run as a single strip.
+     */
+    static void run(int width, int height, boolean parallel, Strip strip) {
+        if (worthSplitting(width, height)) {
+            forEach(height, parallel, strip);
+        } else {
+            strip.run(0, height);
+        }
+    }
+
+    /**
+     * Loaded only for parallel runs.
+     */
+    private static class Parallel {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        static void invoke(int rows, Strip strip) {
+            POOL.invoke(new StripAction(strip, 0, rows));
+        }
+    }
+
+    private static class StripAction extends RecursiveAction {
+        private final Strip strip;
+        private final int from;
+        private final int to;
+
+        StripAction(Strip strip, int from, int to) {
+            this.strip = strip;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int half = (to - from) / 2 / STRIP_ROWS * STRIP_ROWS;
+            if (half == 0) {
+                strip.run(from, to);
+                return;
+            }
+            invokeAll(new StripAction(strip, from, from + half), new StripAction(strip, from + half, to));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package cn.jystudio.bluetooth.raster;
+
+/**
+ * An image read one row of ARGB pixels at a time.
+ * <p>
+ * Rows may be read from several threads at once and in any order.
+ */
+public interface RowSource {
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Copy row {@code y} into {@code argb[0, getWidth())}.
+     */
+    void readRow(int y, int[] argb);
+}
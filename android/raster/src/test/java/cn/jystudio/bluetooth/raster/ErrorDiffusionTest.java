@@ -0,0 +1,133 @@
+package cn.jystudio.bluetooth.raster;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ErrorDiffusionTest {
+    private static final int WIDTH = 64;
+
+    @Test
+    public void kernelsReachTheirRows() {
+        assertEquals(2, ErrorDiffusion.Kernel.FLOYD_STEINBERG.rows());
+        assertEquals(3, ErrorDiffusion.Kernel.ATKINSON.rows());
+        assertEquals(3, ErrorDiffusion.Kernel.STUCKI.rows());
+    }
+
+    @Test
+    public void floydSteinbergCarriesSevenSixteenthsRight() {
+        // 100 prints black and sends +44 right, 144 prints white and sends -49 right
+        assertArrayEquals(new byte[]{1, 0, 1}, ditherRow(ErrorDiffusion.Kernel.FLOYD_STEINBERG, 100, 100, 100));
+    }
+
+    @Test
+    public void atkinsonDropsAQuarterOfTheError() {
+        // each tap gets 1/8: 100 + 13 and 100 + 13 + 14 stay below the middle
+        assertArrayEquals(new byte[]{1, 1, 1}, ditherRow(ErrorDiffusion.Kernel.ATKINSON, 100, 100, 100));
+    }
+
+    @Test
+    public void blackAndWhiteStayPure() {
+        for (ErrorDiffusion.Kernel kernel : ErrorDiffusion.Kernel.values()) {
+            assertEquals(kernel.name(), 16 * WIDTH, dots(flat(kernel, 0, 16)));
+            assertEquals(kernel.name(), 0, dots(flat(kernel, 255, 16)));
+        }
+    }
+
+    @Test
+    public void flatGrayKeepsItsDensity() {
+        for (ErrorDiffusion.Kernel kernel : new ErrorDiffusion.Kernel[]{
+                ErrorDiffusion.Kernel.FLOYD_STEINBERG, ErrorDiffusion.Kernel.STUCKI}) {
+            for (int gray = 32; gray < 255; gray += 32) {
+                assertEquals(kernel.name() + " at " + gray, (255 - gray) / 255.0, density(kernel, gray), 0.03);
+            }
+        }
+    }
+
+    @Test
+    public void atkinsonRaisesContrastAroundTheMiddle() {
+        // only 6/8 of the error is diffused, so tones drift away from the middle and the ends clip
+        assertEquals(0.5, density(ErrorDiffusion.Kernel.ATKINSON, 128), 0.01);
+        double previous = 1;
+        for (int gray = 0; gray < 256; gray += 16) {
+            double density = density(ErrorDiffusion.Kernel.ATKINSON, gray);
+            assertTrue("at " + gray, density <= previous);
+            previous = density;
+        }
+        assertEquals(1.0, density(ErrorDiffusion.Kernel.ATKINSON, 32), 0.0);
+        assertEquals(0.0, density(ErrorDiffusion.Kernel.ATKINSON, 224), 0.0);
+    }
+
+    @Test
+    public void bandsOfAnyHeightGiveTheSameDots() {
+        byte[] luma = noise(WIDTH * 40);
+        for (ErrorDiffusion.Kernel kernel : ErrorDiffusion.Kernel.values()) {
+            byte[] whole = new byte[luma.length];
+            new ErrorDiffusion(kernel, WIDTH).dither(luma, 0, 40, whole, 0);
+
+            ErrorDiffusion diffusion = new ErrorDiffusion(kernel, WIDTH);
+            byte[] bands = new byte[luma.length];
+            for (int y = 0, h = 1; y < 40; y += h, h = Math.min(h + 2, 40 - y)) {
+                diffusion.dither(luma, y * WIDTH, h, bands, y * WIDTH);
+            }
+            assertArrayEquals(kernel.name(), whole, bands);
+        }
+    }
+
+    @Test
+    public void resetForgetsThePreviousImage() {
+        byte[] luma = noise(WIDTH * 8);
+        for (ErrorDiffusion.Kernel kernel : ErrorDiffusion.Kernel.values()) {
+            byte[] fresh = new byte[luma.length];
+            new ErrorDiffusion(kernel, WIDTH).dither(luma, 0, 8, fresh, 0);
+
+            ErrorDiffusion reused = new ErrorDiffusion(kernel, WIDTH);
+            reused.dither(luma, 0, 5, new byte[luma.length], 0);
+            reused.reset();
+            byte[] again = new byte[luma.length];
+            reused.dither(luma, 0, 8, again, 0);
+            assertArrayEquals(kernel.name(), fresh, again);
+        }
+    }
+
+    private static byte[] ditherRow(ErrorDiffusion.Kernel kernel, int... gray) {
+        byte[] luma = new byte[gray.length];
+        for (int i = 0; i < gray.length; ++i) {
+            luma[i] = (byte) gray[i];
+        }
+        byte[] out = new byte[gray.length];
+        new ErrorDiffusion(kernel, gray.length).ditherRow(luma, 0, out, 0);
+        return out;
+    }
+
+    private static byte[] flat(ErrorDiffusion.Kernel kernel, int gray, int rows) {
+        byte[] luma = new byte[WIDTH * rows];
+        Arrays.fill(luma, (byte) gray);
+        byte[] out = new byte[luma.length];
+        new ErrorDiffusion(kernel, WIDTH).dither(luma, 0, rows, out, 0);
+        return out;
+    }
+
+    private static double density(ErrorDiffusion.Kernel kernel, int gray) {
+        return dots(flat(kernel, gray, 64)) / (64.0 * WIDTH);
+    }
+
+    private static byte[] noise(int length) {
+        byte[] luma = new byte[length];
+        new Random(1).nextBytes(luma);
+        return luma;
+    }
+
+    private static int dots(byte[] out) {
+        int count = 0;
+        for (byte b : out) {
+            count += b;
+        }
+        return count;
+    }
+}
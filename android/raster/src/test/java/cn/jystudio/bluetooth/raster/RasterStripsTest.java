@@ -0,0 +1,126 @@
+package cn.jystudio.bluetooth.raster;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RasterStripsTest {
+    private static final int WIDTH = 384;
+
+    @Test
+    public void stripsDependOnTheHeightOnly() {
+        for (int rows : new int[]{1, 63, 64, 127, 128, 129, 191, 300, 1000}) {
+            List<int[]> inline = strips(rows, false);
+            assertEquals("rows " + rows, inline.size(), strips(rows, true).size());
+            for (int i = 0; i < inline.size(); ++i) {
+                assertArrayEquals("rows " + rows, inline.get(i), strips(rows, true).get(i));
+            }
+        }
+    }
+
+    @Test
+    public void stripsCoverEveryRowOnce() {
+        for (int rows : new int[]{1, 64, 128, 129, 300, 1000}) {
+            int next = 0;
+            for (int[] strip : strips(rows, true)) {
+                assertEquals("rows " + rows, next, strip[0]);
+                assertEquals("rows " + rows, 0, strip[0] % RasterStrips.STRIP_ROWS);
+                // the remainder joins the last strip instead of making a short one
+                assertTrue("rows " + rows, strip[1] - strip[0] >= Math.min(rows, RasterStrips.STRIP_ROWS));
+                next = strip[1];
+            }
+            assertEquals(rows, next);
+        }
+    }
+
+    @Test
+    public void smallImagesAreNotSplit() {
+        assertFalse(RasterStrips.worthSplitting(WIDTH, RasterStrips.STRIP_ROWS * 2 - 1));
+        assertFalse(RasterStrips.worthSplitting(64, 1000));
+        assertTrue(RasterStrips.worthSplitting(WIDTH, 256));
+    }
+
+    @Test
+    public void parallelRunsGiveTheSameDots() {
+        ArgbImage image = noise(WIDTH, 700);
+        for (int dither = Dither.THRESHOLD; dither <= Dither.STUCKI; ++dither) {
+            assertArrayEquals("dither " + dither, Dither.toBWPix(image, 8, dither, false),
+                    Dither.toBWPix(image, 8, dither, true));
+        }
+        assertArrayEquals(Luma.toLuma(image, 8, false), Luma.toLuma(image, 8, true));
+    }
+
+    @Test
+    public void seededStripsLeaveNoSeam() {
+        int height = 640;
+        for (int dither = Dither.FLOYD_STEINBERG; dither <= Dither.STUCKI; ++dither) {
+            for (int gray = 64; gray <= 192; gray += 64) {
+                // a single pass over the whole image, no strip starts from a blank error
+                byte[] luma = new byte[WIDTH * height];
+                java.util.Arrays.fill(luma, (byte) gray);
+                byte[] single = new byte[luma.length];
+                new ErrorDiffusion(Dither.kernel(dither), WIDTH).dither(luma, 0, height, single, 0);
+                double target = density(single, 0, height);
+                double spread = 0;
+                for (int y = 2; y <= height - 2; ++y) {
+                    spread = Math.max(spread, Math.abs(density(single, y - 2, y + 2) - target));
+                }
+
+                byte[] dots = Dither.toBWPix(flat(WIDTH, height, gray), 0, dither, true);
+                for (int seam = RasterStrips.STRIP_ROWS; seam < height; seam += RasterStrips.STRIP_ROWS) {
+                    assertEquals("dither " + dither + " at " + gray + " row " + seam,
+                            target, density(dots, seam - 2, seam + 2), spread + 0.01);
+                }
+            }
+        }
+    }
+
+    private static List<int[]> strips(int rows, boolean parallel) {
+        final List<int[]> strips = Collections.synchronizedList(new ArrayList<int[]>());
+        RasterStrips.forEach(rows, parallel, new RasterStrips.Strip() {
+            @Override
+            public void run(int from, int to) {
+                strips.add(new int[]{from, to});
+            }
+        });
+        Collections.sort(strips, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return a[0] - b[0];
+            }
+        });
+        return strips;
+    }
+
+    private static ArgbImage noise(int width, int height) {
+        Random random = new Random(1);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; ++i) {
+            pixels[i] = random.nextInt();
+        }
+        return new ArgbImage(pixels, width, height);
+    }
+
+    private static ArgbImage flat(int width, int height, int gray) {
+        int[] pixels = new int[width * height];
+        java.util.Arrays.fill(pixels, 0xff000000 | gray * 0x010101);
+        return new ArgbImage(pixels, width, height);
+    }
+
+    private static double density(byte[] dots, int from, int to) {
+        int count = 0;
+        for (int k = from * WIDTH; k < to * WIDTH; ++k) {
+            count += dots[k];
+        }
+        return count / (double) ((to - from) * WIDTH);
+    }
+}
@@ -6,6 +6,7 @@ import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothServerSocket;
 import android.bluetooth.BluetoothSocket;
 import android.content.Context;
+import android.os.SystemClock;
 import android.util.Log;
 
 import java.io.IOException;
@@ -59,6 +60,9 @@ public class BluetoothService {
 
     private static List<BluetoothServiceStateObserver> observers = new ArrayList<BluetoothServiceStateObserver>();
     private String mLastConnectedDeviceAddress = "";
+    // writes at least this long are timed to estimate the link throughput
+    private static final int MIN_TIMED_WRITE = 4096;
+    private volatile int mLinkBytesPerSecond = 0;
 
     /**
      * Constructor. Prepares a new BTPrinter session.
@@ -283,6 +287,7 @@ public class BluetoothService {
 
             //keep the address of last connected device and get this address directly in the .js code
             mLastConnectedDeviceAddress = mmDevice.getAddress();
+            mLinkBytesPerSecond = 0;
 
             // Keep listening to the InputStream while connected
             while (true) {
@@ -316,8 +321,14 @@ public class BluetoothService {
          */
         public void write(byte[] buffer) {
             try {
+                long start = SystemClock.elapsedRealtime();
                 mmOutStream.write(buffer);
                 mmOutStream.flush();//清空缓存
+                long elapsed = SystemClock.elapsedRealtime() - start;
+                if (buffer.length >= MIN_TIMED_WRITE && elapsed > 0) {
+                    int rate = (int) (buffer.length * 1000L / elapsed);
+                    mLinkBytesPerSecond = mLinkBytesPerSecond == 0 ? rate : (mLinkBytesPerSecond * 3 + rate) / 4;
+                }
                /* if (buffer.length > 3000) //
                 {
                   byte[] readata = new byte[1];
@@ -359,6 +370,16 @@ public class BluetoothService {
     }
 
 
+    /**
+     * Throughput of the current connection in bytes per second, averaged over the large writes
+     * made so far, or 0 before the first one. The socket stream returns once the Bluetooth stack
+     * has buffered the data, flush does not wait for the radio, so this is an upper bound: the
+     * printer profile can give the real speed instead.
+     */
+    public int getLinkBytesPerSecond() {
+        return mLinkBytesPerSecond;
+    }
+
     //Method to get the address of the last connected device
     public String getLastConnectedDeviceAddress() {
         return mLastConnectedDeviceAddress;
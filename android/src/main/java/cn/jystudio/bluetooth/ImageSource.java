@@ -0,0 +1,107 @@
+package cn.jystudio.bluetooth;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.Base64;
+import cn.jystudio.bluetooth.escpos.command.sdk.PrintPicture;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Image arguments passed from JS: either a base64 string, or a file:// / content:// URI
+ * that is streamed from disk so the image never crosses the bridge.
+ */
+public class ImageSource {
+
+    public static boolean isUri(String source) {
+        return source.startsWith("file://") || source.startsWith("content://");
+    }
+
+    /**
+     * The raw bytes behind {@code source}.
+     */
+    public static byte[] readBytes(Context context, String source) throws IOException {
+        if (!isUri(source)) {
+            return Base64.decode(source, Base64.DEFAULT);
+        }
+        InputStream in = open(context, source);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Decode the image downsampled towards {@code width} dots, see {@link PrintPicture#decodeSampled}.
+     * A URI is streamed twice, once for the bounds and once for the pixels.
+     *
+     * @return null if the data is not an image
+     */
+    public static Bitmap decodeBitmap(Context context, String source, int width) throws IOException {
+        if (!isUri(source)) {
+            byte[] bytes = Base64.decode(source, Base64.DEFAULT);
+            return PrintPicture.decodeSampled(bytes, width);
+        }
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inJustDecodeBounds = true;
+        decodeStream(context, source, opts);
+        if (opts.outWidth <= 0 || opts.outHeight <= 0) {
+            return null;
+        }
+        opts.inJustDecodeBounds = false;
+        opts.inSampleSize = PrintPicture.sampleSize(opts.outWidth, width);
+        return decodeStream(context, source, opts);
+    }
+
+    /**
+     * What identifies the content of {@code source} in the image cache: the base64 string itself,
+     * a file URI with its size and modification time, or null for a content URI, which gives no
+     * reliable way to notice a change and is never cached.
+     */
+    public static CharSequence cacheIdentity(String source) {
+        if (source.startsWith("content://")) {
+            return null;
+        }
+        if (source.startsWith("file://")) {
+            File file = new File(Uri.parse(source).getPath());
+            return source + "#" + file.length() + "#" + file.lastModified();
+        }
+        return source;
+    }
+
+    private static Bitmap decodeStream(Context context, String source, BitmapFactory.Options opts) throws IOException {
+        InputStream in = new BufferedInputStream(open(context, source), 64 * 1024);
+        try {
+            return BitmapFactory.decodeStream(in, null, opts);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static InputStream open(Context context, String source) throws IOException {
+        Uri uri = Uri.parse(source);
+        if ("file".equals(uri.getScheme())) {
+            return new FileInputStream(uri.getPath());
+        }
+        InputStream in = context.getContentResolver().openInputStream(uri);
+        if (in == null) {
+            throw new FileNotFoundException(source);
+        }
+        return in;
+    }
+}
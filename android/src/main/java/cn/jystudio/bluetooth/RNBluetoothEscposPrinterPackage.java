@@ -1,11 +1,14 @@
 
 package cn.jystudio.bluetooth;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import cn.jystudio.bluetooth.escpos.RNBluetoothEscposPrinterModule;
+import cn.jystudio.bluetooth.escpos.command.sdk.DiskRasterCache;
+import cn.jystudio.bluetooth.escpos.command.sdk.RasterCache;
 import cn.jystudio.bluetooth.tsc.RNBluetoothTscPrinterModule;
 import com.facebook.react.ReactPackage;
 import com.facebook.react.bridge.NativeModule;
@@ -17,6 +20,13 @@ public class RNBluetoothEscposPrinterPackage implements ReactPackage {
     @Override
     public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
         BluetoothService service = new BluetoothService(reactContext);
+        RasterCache cache = RasterCache.getInstance();
+        if (cache.getDiskCache() == null) {
+            DiskRasterCache disk = new DiskRasterCache(new File(reactContext.getCacheDir(), "escpos-raster"),
+                    DiskRasterCache.DEFAULT_MAX_BYTES);
+            disk.setProfile(RasterCache.ENCODER_VERSION);
+            cache.setDiskCache(disk);
+        }
         return Arrays.<NativeModule>asList(new RNBluetoothManagerModule(reactContext, service),
                 new RNBluetoothEscposPrinterModule(reactContext, service),
                 new RNBluetoothTscPrinterModule(reactContext, service));
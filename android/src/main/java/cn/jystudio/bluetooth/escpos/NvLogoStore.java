@@ -0,0 +1,243 @@
+package cn.jystudio.bluetooth.escpos;
+
+import android.util.Log;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local manifest of the logos uploaded into each printer's non-volatile memory, keyed by
+ * the printer address.
+ * <p>
+ * FS q replaces every NV bit image of the printer at once, so the encoded FS q data of each
+ * logo is kept next to the manifest to upload the whole set again when one of them changes.
+ * GS 8 L graphics are stored one by one under a key code pair and need no local copy.
+ */
+class NvLogoStore {
+    private static final String TAG = "NvLogoStore";
+
+    static final int STORE_FS = 0;
+    static final int STORE_GS = 1;
+
+    static class Logo {
+        final String key;
+        // identifies the image and the options it was encoded with
+        final String id;
+        final int store;
+        // GS key code pair index, unused for FS logos whose number is their position
+        final int slot;
+
+        Logo(String key, String id, int store, int slot) {
+            this.key = key;
+            this.id = id;
+            this.store = store;
+            this.slot = slot;
+        }
+
+        int kc1() {
+            return 32 + slot / 95;
+        }
+
+        int kc2() {
+            return 32 + slot % 95;
+        }
+    }
+
+    private final File dir;
+    private JSONObject manifest;
+    // bumped on every change, FS p numbers may have moved
+    private int generation;
+
+    NvLogoStore(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Changes whenever a logo is put or removed, for commands holding FS p numbers to be built again.
+     */
+    synchronized int generation() {
+        return generation;
+    }
+
+    synchronized Logo get(String printer, String key) {
+        for (Logo logo : logos(printer)) {
+            if (logo.key.equals(key)) {
+                return logo;
+            }
+        }
+        return null;
+    }
+
+    synchronized List<Logo> logos(String printer) {
+        List<Logo> logos = new ArrayList<Logo>();
+        JSONArray list = load().optJSONArray(printer);
+        for (int i = 0; list != null && i < list.length(); i++) {
+            JSONObject o = list.optJSONObject(i);
+            logos.add(new Logo(o.optString("key"), o.optString("id"), o.optInt("store"), o.optInt("slot")));
+        }
+        return logos;
+    }
+
+    /**
+     * FS p number of a FS logo, its position among the FS logos of the printer.
+     */
+    synchronized int fsNumber(String printer, String key) {
+        int n = 0;
+        for (Logo logo : logos(printer)) {
+            if (logo.store == STORE_FS) {
+                n++;
+                if (logo.key.equals(key)) {
+                    return n;
+                }
+            }
+        }
+        return 0;
+    }
+
+    synchronized int nextGsSlot(String printer) {
+        int slot = 0;
+        for (Logo logo : logos(printer)) {
+            if (logo.store == STORE_GS && logo.slot >= slot) {
+                slot = logo.slot + 1;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Encoded FS q data of every FS logo of the printer once {@code key} is added or replaced with
+     * {@code fsData}, or left out when it is null, in the FS p number order {@link #put} will give
+     * them. Nothing is changed, the logo is put only after the printer took the set.
+     */
+    synchronized List<byte[]> fsImagesWith(String printer, String key, byte[] fsData) throws IOException {
+        List<byte[]> images = new ArrayList<byte[]>();
+        for (Logo logo : logos(printer)) {
+            if (logo.store == STORE_FS && !logo.key.equals(key)) {
+                images.add(read(dataFile(printer, logo.key)));
+            }
+        }
+        if (fsData != null) {
+            images.add(fsData);
+        }
+        return images;
+    }
+
+    /**
+     * Add or replace a logo, appended after the existing ones.
+     *
+     * @param fsData encoded FS q data of a FS logo, null for a GS logo
+     */
+    synchronized void put(String printer, Logo logo, byte[] fsData) throws IOException {
+        if (fsData != null) {
+            write(dataFile(printer, logo.key), fsData);
+        } else {
+            // a FS logo moved to GS
+            dataFile(printer, logo.key).delete();
+        }
+        JSONArray list = without(printer, logo.key);
+        try {
+            JSONObject o = new JSONObject();
+            o.put("key", logo.key);
+            o.put("id", logo.id);
+            o.put("store", logo.store);
+            o.put("slot", logo.slot);
+            list.put(o);
+            manifest.put(printer, list);
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage());
+        }
+        save();
+    }
+
+    synchronized void remove(String printer, String key) throws IOException {
+        dataFile(printer, key).delete();
+        try {
+            manifest.put(printer, without(printer, key));
+        } catch (JSONException e) {
+            throw new IOException(e.getMessage());
+        }
+        save();
+    }
+
+    /**
+     * Forget everything stored on the printer, the next store uploads again.
+     */
+    synchronized void clear(String printer) throws IOException {
+        for (Logo logo : logos(printer)) {
+            dataFile(printer, logo.key).delete();
+        }
+        load().remove(printer);
+        save();
+    }
+
+    private JSONArray without(String printer, String key) {
+        JSONArray list = new JSONArray();
+        JSONArray old = load().optJSONArray(printer);
+        for (int i = 0; old != null && i < old.length(); i++) {
+            JSONObject o = old.optJSONObject(i);
+            if (!key.equals(o.optString("key"))) {
+                list.put(o);
+            }
+        }
+        return list;
+    }
+
+    private File dataFile(String printer, String key) {
+        return new File(dir, (printer + "-" + key).replaceAll("[^A-Za-z0-9_-]", "_")
+                + "-" + Integer.toHexString(key.hashCode()) + ".bin");
+    }
+
+    private JSONObject load() {
+        if (manifest != null) {
+            return manifest;
+        }
+        manifest = new JSONObject();
+        File file = new File(dir, "manifest.json");
+        if (file.isFile()) {
+            try {
+                manifest = new JSONObject(new String(read(file), "UTF-8"));
+            } catch (Exception e) {
+                Log.e(TAG, "manifest unreadable, starting over", e);
+            }
+        }
+        return manifest;
+    }
+
+    private void save() throws IOException {
+        generation++;
+        write(new File(dir, "manifest.json"), load().toString().getBytes("UTF-8"));
+    }
+
+    private void write(File file, byte[] data) throws IOException {
+        dir.mkdirs();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static byte[] read(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            byte[] data = new byte[(int) file.length()];
+            int n = 0;
+            while (n < data.length) {
+                int r = in.read(data, n, data.length - n);
+                if (r < 0) throw new IOException("unexpected end of " + file);
+                n += r;
+            }
+            return data;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package cn.jystudio.bluetooth.escpos;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * What differs from one printer model to another, kept per printer address in the app preferences.
+ * The profile stored under the empty address applies while no printer is connected.
+ */
+class PrinterProfile {
+    private static final String TAG = "PrinterProfile";
+
+    static final int RASTER_GS_V_0 = 0;
+    static final int RASTER_ESC_STAR = 1;
+    static final int QR_RASTER = 0;
+    static final int QR_GS_K = 1;
+    static final int DEFAULT_SLOW_LINK_BYTES_PER_SECOND = 4 * 1024;
+
+    // how images are sent, GS v 0 rows or ESC * 24 dot columns
+    int rasterFormat = RASTER_GS_V_0;
+    // how QR codes are sent, as an image or as GS ( k for printers with a QR encoder of their own
+    int qrFormat = QR_RASTER;
+    // the link speed to use instead of the one measured, 0 to measure it
+    int linkBytesPerSecond = 0;
+    // below this the AUTO resolution of printPic halves the image both ways
+    int slowLinkBytesPerSecond = DEFAULT_SLOW_LINK_BYTES_PER_SECOND;
+
+    static PrinterProfile load(SharedPreferences prefs, String address) {
+        PrinterProfile profile = new PrinterProfile();
+        String json = prefs.getString(address, null);
+        if (json != null) {
+            try {
+                JSONObject o = new JSONObject(json);
+                profile.rasterFormat = o.optInt("rasterFormat", RASTER_GS_V_0);
+                profile.qrFormat = o.optInt("qrFormat", QR_RASTER);
+                profile.linkBytesPerSecond = o.optInt("linkBytesPerSecond", 0);
+                profile.slowLinkBytesPerSecond = o.optInt("slowLinkBytesPerSecond", DEFAULT_SLOW_LINK_BYTES_PER_SECOND);
+            } catch (JSONException e) {
+                Log.e(TAG, "profile of " + address + " unreadable", e);
+            }
+        }
+        return profile;
+    }
+
+    void save(SharedPreferences prefs, String address) {
+        try {
+            JSONObject o = new JSONObject();
+            o.put("rasterFormat", rasterFormat);
+            o.put("qrFormat", qrFormat);
+            o.put("linkBytesPerSecond", linkBytesPerSecond);
+            o.put("slowLinkBytesPerSecond", slowLinkBytesPerSecond);
+            prefs.edit().putString(address, o.toString()).apply();
+        } catch (JSONException e) {
+            Log.e(TAG, "cannot save profile of " + address, e);
+        }
+    }
+}
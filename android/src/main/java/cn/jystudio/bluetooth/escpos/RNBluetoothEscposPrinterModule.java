@@ -1,25 +1,40 @@
 
 package cn.jystudio.bluetooth.escpos;
 
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.util.Base64;
+import android.os.SystemClock;
 import android.util.Log;
 import cn.jystudio.bluetooth.BluetoothService;
 import cn.jystudio.bluetooth.BluetoothServiceStateObserver;
+import cn.jystudio.bluetooth.ImageSource;
 import cn.jystudio.bluetooth.escpos.command.sdk.Command;
+import cn.jystudio.bluetooth.escpos.command.sdk.DiskRasterCache;
+import cn.jystudio.bluetooth.escpos.command.sdk.DisplayWidth;
+import cn.jystudio.bluetooth.escpos.command.sdk.EscPosWriter;
 import cn.jystudio.bluetooth.escpos.command.sdk.PrintPicture;
 import cn.jystudio.bluetooth.escpos.command.sdk.PrinterCommand;
+import cn.jystudio.bluetooth.escpos.command.sdk.PrinterStyle;
+import cn.jystudio.bluetooth.escpos.command.sdk.RasterCache;
+import cn.jystudio.bluetooth.escpos.command.sdk.TableLayout;
+import cn.jystudio.bluetooth.raster.RasterCommands;
 import com.facebook.react.bridge.*;
-import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.WriterException;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
         implements BluetoothServiceStateObserver {
@@ -27,11 +42,38 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
 
     public static final int WIDTH_58 = 384;
     public static final int WIDTH_80 = 576;
+    // printPic resolutions, the GS v 0 mode the printer scales the image up with
+    public static final int RESOLUTION_AUTO = -1;
+    public static final int RESOLUTION_FULL = 0;
+    public static final int RESOLUTION_HALF = 3;
+    private static final int STATUS_TIMEOUT_SECONDS = 30;
+    // modules of white around a QR code, as QRCodeWriter leaves
+    private static final int QR_QUIET_ZONE = 4;
+    private static final int CODE_CACHE_BYTES = 256 * 1024;
     private final ReactApplicationContext reactContext;
     /******************************************************************************************************/
 
     private int deviceWidth = WIDTH_58;
     private BluetoothService mService;
+    private final NvLogoStore logoStore;
+    // image held in the downloaded bit image (GS *) of the printer on the current connection
+    private volatile RasterCache.Key downloadedImage;
+    private final SharedPreferences profilePrefs;
+    private PrinterProfile profile;
+    private String profileAddress;
+    // counted down by the next bytes the printer sends back
+    private volatile CountDownLatch statusReply;
+    // finished QR code and barcode commands, receipts print the same few codes over and over
+    private final RasterCache codeCache = new RasterCache(CODE_CACHE_BYTES);
+    // text modes of the printer on the current connection, jobs are built and sent holding its lock
+    private final PrinterStyle style = new PrinterStyle();
+    // bumped on every connection change; the service calls back holding its own lock, which jobs
+    // take while holding the style lock, so the callback leaves the style to the next job
+    private final AtomicInteger connectionChanges = new AtomicInteger();
+    // connectionChanges when the style was last known to match the printer, guarded by the style lock
+    private int styleConnection;
+    // registered receipt templates by name, guarded by the style lock
+    private final Map<String, ReceiptTemplate> templates = new HashMap<String, ReceiptTemplate>();
 
 
     public RNBluetoothEscposPrinterModule(ReactApplicationContext reactContext,
@@ -40,6 +82,8 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
         this.reactContext = reactContext;
         this.mService = bluetoothService;
         this.mService.addStateObserver(this);
+        this.logoStore = new NvLogoStore(new File(reactContext.getFilesDir(), "escpos-nv"));
+        this.profilePrefs = reactContext.getSharedPreferences("escpos-printer-profiles", Context.MODE_PRIVATE);
     }
 
     @Override
@@ -87,11 +131,19 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
 
     @ReactMethod
     public void printerLineSpace(int sp,final Promise promise){
-        byte[] command = PrinterCommand.POS_Set_DefLineSpace();
-        if(sp>0){
-            command = PrinterCommand.POS_Set_LineSpace(sp);
+        boolean sent = false;
+        if (sp <= 255) {
+            synchronized (style) {
+                EscPosWriter job = newJob(3);
+                if (sp > 0) {
+                    job.lineSpacing(sp);
+                } else {
+                    job.defaultLineSpacing();
+                }
+                sent = sendJob(job);
+            }
         }
-        if(command==null || !sendDataByte(command)){
+        if(!sent){
             promise.reject("COMMAND_NOT_SEND");
         }else{
             promise.resolve(null);
@@ -104,7 +156,13 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
      */
     @ReactMethod
     public void printerUnderLine(int line,final Promise promise){
-        if(sendDataByte(PrinterCommand.POS_Set_UnderLine(line))){
+        boolean sent = false;
+        if (line >= 0 && line <= 2) {
+            synchronized (style) {
+                sent = sendJob(newJob(6).underline(line));
+            }
+        }
+        if(sent){
             promise.resolve(null);
         }else{
             promise.reject("COMMAND_NOT_SEND");
@@ -121,7 +179,13 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
     @ReactMethod
     public void printerAlign(int align,final Promise promise){
         Log.d(TAG,"Align:"+align);
-        if(sendDataByte(PrinterCommand.POS_S_Align(align))){
+        boolean sent = false;
+        if ((align >= 0 && align <= 2) || (align >= 48 && align <= 50)) {
+            synchronized (style) {
+                sent = sendJob(newJob(3).align(align));
+            }
+        }
+        if(sent){
             promise.resolve(null);
         }else{
             promise.reject("COMMAND_NOT_SEND");
@@ -132,26 +196,25 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
     @ReactMethod
     public void printText(String text, @Nullable  ReadableMap options, final Promise promise) {
         try {
-            String encoding = "GBK";
-            int codepage = 0;
-            int widthTimes = 0;
-            int heigthTimes=0;
-            int fonttype=0;
-            if(options!=null) {
-                encoding = options.hasKey("encoding") ? options.getString("encoding") : "GBK";
-                codepage = options.hasKey("codepage") ? options.getInt("codepage") : 0;
-                widthTimes = options.hasKey("widthtimes") ? options.getInt("widthtimes") : 0;
-                heigthTimes = options.hasKey("heigthtimes") ? options.getInt("heigthtimes") : 0;
-                fonttype = options.hasKey("fonttype") ? options.getInt("fonttype") : 0;
-            }
+            TextOptions textOptions = new TextOptions(options);
             String toPrint = text;
 //            if ("UTF-8".equalsIgnoreCase(encoding)) {
 //                byte[] b = text.getBytes("UTF-8");
 //                toPrint = new String(b, Charset.forName(encoding));
 //            }
 
-            byte[] bytes = PrinterCommand.POS_Print_Text(toPrint, encoding, codepage, widthTimes, heigthTimes, fonttype);
-            if (sendDataByte(bytes)) {
+            boolean sent;
+            synchronized (style) {
+                EscPosWriter job = newJob(toPrint.length() * 2 + 16);
+                try {
+                    sent = textOptions.write(job, toPrint) && sendJob(job);
+                } catch (UnsupportedEncodingException e) {
+                    // the modes written before the text were never sent
+                    style.forget();
+                    throw e;
+                }
+            }
+            if (sent) {
                 promise.resolve(null);
             } else {
                 promise.reject("COMMAND_NOT_SEND");
@@ -168,146 +231,537 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
             promise.reject("COLUMN_WIDTHS_ALIGNS_AND_TEXTS_NOT_MATCH");
             return;
         }
-            int totalLen = 0;
-            for(int i=0;i<columnWidths.size();i++){
-                totalLen+=columnWidths.getInt(i);
+        List<CharSequence[]> rows = new ArrayList<CharSequence[]>(1);
+        rows.add(rowTexts(columnTexts));
+        printRows(columnWidths, columnAligns, rows, options, promise);
+    }
+
+    /**
+     * printColumn for many rows at once, each an array of column texts, laid out and sent as one job.
+     */
+    @ReactMethod
+    public void printTable(ReadableArray columnWidths,ReadableArray columnAligns,ReadableArray rowTexts,
+                           @Nullable ReadableMap options,final Promise promise){
+        List<CharSequence[]> rows = tableRows(columnWidths, columnAligns, rowTexts);
+        if (rows == null) {
+            promise.reject("COLUMN_WIDTHS_ALIGNS_AND_TEXTS_NOT_MATCH");
+            return;
+        }
+        printRows(columnWidths, columnAligns, rows, options, promise);
+    }
+
+    /**
+     * @return null when a row or the aligns do not have one entry per column
+     */
+    @Nullable
+    private static List<CharSequence[]> tableRows(ReadableArray columnWidths, ReadableArray columnAligns,
+                                                  ReadableArray rowTexts) {
+        List<CharSequence[]> rows = new ArrayList<CharSequence[]>(rowTexts.size());
+        for (int i = 0; i < rowTexts.size(); i++) {
+            ReadableArray texts = rowTexts.getArray(i);
+            if (texts == null || texts.size() != columnWidths.size() || columnWidths.size() != columnAligns.size()) {
+                return null;
             }
-            int maxLen = deviceWidth/8;
-            if(totalLen>maxLen){
-                promise.reject("COLUNM_WIDTHS_TOO_LARGE");
-                return;
+            rows.add(rowTexts(texts));
+        }
+        return rows;
+    }
+
+    private static CharSequence[] rowTexts(ReadableArray texts) {
+        CharSequence[] row = new CharSequence[texts.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = texts.getString(i);
+        }
+        return row;
+    }
+
+    private void printRows(ReadableArray columnWidths, ReadableArray columnAligns, List<CharSequence[]> rows,
+                           @Nullable ReadableMap options, final Promise promise) {
+        TextOptions textOptions = new TextOptions(options);
+        StringBuilder table = layRows(columnWidths, columnAligns, rows, textOptions);
+        if (table == null) {
+            promise.reject("COLUNM_WIDTHS_TOO_LARGE");
+            return;
+        }
+        if (table.length() == 0) {
+            promise.resolve(null);
+            return;
+        }
+        boolean sent;
+        synchronized (style) {
+            EscPosWriter job = newJob(table.length() * 2 + 16);
+            try {
+                sent = textOptions.write(job, table) && sendJob(job);
+            } catch (UnsupportedEncodingException e) {
+                sent = false;
+            }
+            if (!sent) {
+                // what the job set was never sent
+                style.forget();
             }
+        }
+        if (sent) {
+            promise.resolve(null);
+        } else {
+            promise.reject("COMMAND_NOT_SEND");
+        }
+    }
 
-        String encoding = "GBK";
-        int codepage = 0;
-        int widthTimes = 0;
-        int heigthTimes = 0;
-        int fonttype = 0;
-        if (options != null) {
-            encoding = options.hasKey("encoding") ? options.getString("encoding") : "GBK";
-            codepage = options.hasKey("codepage") ? options.getInt("codepage") : 0;
-            widthTimes = options.hasKey("widthtimes") ? options.getInt("widthtimes") : 0;
-            heigthTimes = options.hasKey("heigthtimes") ? options.getInt("heigthtimes") : 0;
-            fonttype = options.hasKey("fonttype") ? options.getInt("fonttype") : 0;
+    /**
+     * Lays every row out in one buffer, to be encoded once behind the modes and sent as one job.
+     *
+     * @return null when the columns are wider than the printer
+     */
+    @Nullable
+    private StringBuilder layRows(ReadableArray columnWidths, ReadableArray columnAligns, List<CharSequence[]> rows,
+                                  TextOptions textOptions) {
+        TableLayout layout = tableLayout(columnWidths, columnAligns, textOptions);
+        return layout == null ? null : layRows(layout, rows);
+    }
+
+    /**
+     * @return null when the columns are wider than the printer
+     */
+    @Nullable
+    private TableLayout tableLayout(ReadableArray columnWidths, ReadableArray columnAligns, TextOptions textOptions) {
+        int[] widths = new int[columnWidths.size()];
+        int[] aligns = new int[columnAligns.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = columnWidths.getInt(i);
+            aligns[i] = columnAligns.getInt(i);
+        }
+        TableLayout layout = new TableLayout(widths, aligns, DisplayWidth.isEastAsian(textOptions.encoding));
+        return layout.width() > deviceWidth / 8 ? null : layout;
+    }
+
+    private static StringBuilder layRows(TableLayout layout, List<CharSequence[]> rows) {
+        StringBuilder table = new StringBuilder(rows.size() * (layout.width() + 2));
+        for (CharSequence[] row : rows) {
+            layout.appendRow(row, table);
         }
-        Log.d(TAG,"encoding: "+encoding);
+        return table;
+    }
 
-        /**
-         * [column1-1,
-         * column1-2,
-         * column1-3 ... column1-n]
-         * ,
-         *  [column2-1,
-         * column2-2,
-         * column2-3 ... column2-n]
-         *
-         * ...
-         *
-         */
-        List<List<String>> table = new ArrayList<List<String>>();
-
-        /**splits the column text to few rows and applies the alignment **/
-        int padding = 1;
-        for(int i=0;i<columnWidths.size();i++){
-            int width =columnWidths.getInt(i)-padding;//1 char padding
-            String text = String.copyValueOf(columnTexts.getString(i).toCharArray());
-            List<ColumnSplitedString> splited = new ArrayList<ColumnSplitedString>();
-            int shorter = 0;
-            int counter = 0;
-            String temp = "";
-            for(int c=0;c<text.length();c++){
-                char ch = text.charAt(c);
-                int l = isChinese(ch)?2:1;
-                if (l==2){
-                    shorter++;
-                }
-                temp=temp+ch;
-
-                if(counter+l<width){
-                   counter = counter+l;
-                }else{
-                    splited.add(new ColumnSplitedString(shorter,temp));
-                    temp = "";
-                    counter=0;
-                    shorter=0;
+    /**
+     * A whole receipt in one call: each operation is the name of a method of this module followed by
+     * its arguments, e.g. ["printerAlign", 1] or ["printText", "total\n\r", {"widthtimes": 1}].
+     * Everything is written into one job and sent with one write; nothing is sent when an operation
+     * is unknown or its arguments are invalid, the promise is rejected with its index.
+     */
+    @ReactMethod
+    public void printDocument(ReadableArray operations, final Promise promise) {
+        boolean sent;
+        synchronized (style) {
+            EscPosWriter job = newJob(1024);
+            boolean initializes = false;
+            for (int i = 0; i < operations.size(); i++) {
+                try {
+                    ReadableArray operation = operations.getArray(i);
+                    writeOperation(job, operation);
+                    initializes |= "printerInit".equals(operation.getString(0));
+                } catch (Exception e) {
+                    // the modes written so far were never sent
+                    style.forget();
+                    promise.reject("INVALID_OPERATION", "operation " + i + ": " + e.getMessage(), e);
+                    return;
                 }
             }
-            if(temp.length()>0) {
-                splited.add(new ColumnSplitedString(shorter,temp));
+            if (initializes) {
+                // ESC @ also clears the downloaded bit image
+                downloadedImage = null;
             }
-            int align = columnAligns.getInt(i);
+            sent = sendJob(job);
+        }
+        if (sent) {
+            promise.resolve(null);
+        } else {
+            promise.reject("COMMAND_NOT_SEND");
+        }
+    }
 
-            List<String> formated = new ArrayList<String>();
-            for(ColumnSplitedString s: splited){
-                StringBuilder empty = new StringBuilder();
-                for(int w=0;w<(width+padding-s.getShorter());w++){
-                    empty.append(" ");
+    /**
+     * One printDocument operation, with the checks of the method it is named after. Only writes into
+     * the job, templates compile through here without sending anything. printDownloadedPic,
+     * storeLogo and selfTest keep state of their own and are not supported.
+     */
+    private void writeOperation(EscPosWriter job, ReadableArray operation) throws Exception {
+        String name = operation.getString(0);
+        byte[] command;
+        switch (name) {
+            case "printerInit":
+                job.init();
+                return;
+            case "printAndFeed":
+                command = PrinterCommand.POS_Set_PrtAndFeedPaper(operation.getInt(1));
+                break;
+            case "printerLeftSpace":
+                command = PrinterCommand.POS_Set_LeftSP(operation.getInt(1));
+                break;
+            case "printerLineSpace": {
+                int sp = operation.getInt(1);
+                if (sp > 255) {
+                    throw new IllegalArgumentException("line space " + sp);
                 }
-                int startIdx = 0;
-                String ss = s.getStr();
-                if(align == 1 && ss.length()<(width-s.getShorter())){
-                    startIdx = (width-s.getShorter()-ss.length())/2;
-                    if(startIdx+ss.length()>width-s.getShorter()){
-                        startIdx--;
-                    }
-                    if(startIdx<0){
-                        startIdx=0;
-                    }
-                }else if(align==2 && ss.length()<(width-s.getShorter())){
-                    startIdx =width - s.getShorter()-ss.length();
+                if (sp > 0) {
+                    job.lineSpacing(sp);
+                } else {
+                    job.defaultLineSpacing();
                 }
-                Log.d(TAG,"empty.replace("+startIdx+","+(startIdx+ss.length())+","+ss+")");
-                empty.replace(startIdx,startIdx+ss.length(),ss);
-                formated.add(empty.toString());
+                return;
+            }
+            case "printerUnderLine": {
+                int line = operation.getInt(1);
+                if (line < 0 || line > 2) {
+                    throw new IllegalArgumentException("under line " + line);
+                }
+                job.underline(line);
+                return;
             }
-            table.add(formated);
+            case "printerAlign": {
+                int align = operation.getInt(1);
+                if ((align < 0 || align > 2) && (align < 48 || align > 50)) {
+                    throw new IllegalArgumentException("align " + align);
+                }
+                job.align(align);
+                return;
+            }
+            case "setBlob":
+                job.bold(operation.getInt(1));
+                return;
+            case "rotate":
+                command = PrinterCommand.POS_Set_Rotate(operation.getInt(1));
+                break;
+            case "printText":
+                if (!new TextOptions(optionalMap(operation, 2)).write(job, operation.getString(1))) {
+                    throw new IllegalArgumentException("invalid text options");
+                }
+                return;
+            case "printColumn":
+            case "printTable": {
+                ReadableArray widths = operation.getArray(1);
+                ReadableArray aligns = operation.getArray(2);
+                List<CharSequence[]> rows;
+                if (name.equals("printColumn")) {
+                    ReadableArray texts = operation.getArray(3);
+                    rows = texts.size() == widths.size() && widths.size() == aligns.size()
+                            ? Collections.singletonList(rowTexts(texts)) : null;
+                } else {
+                    rows = tableRows(widths, aligns, operation.getArray(3));
+                }
+                if (rows == null) {
+                    throw new IllegalArgumentException("COLUMN_WIDTHS_ALIGNS_AND_TEXTS_NOT_MATCH");
+                }
+                TextOptions textOptions = new TextOptions(optionalMap(operation, 4));
+                writeTable(job, tableLayout(widths, aligns, textOptions), rows, textOptions);
+                return;
+            }
+            case "printQRCode":
+                command = qrCode(operation.getString(1), operation.getInt(2), operation.getInt(3));
+                break;
+            case "printBarCode":
+                command = barCode(operation.getString(1), operation.getInt(2), operation.getInt(3),
+                        operation.getInt(4), operation.getInt(5), operation.getInt(6));
+                break;
+            case "printPic": {
+                byte[] data = picCommand(operation.getString(1), optionalMap(operation, 2));
+                if (data == null) {
+                    throw new IllegalArgumentException("INVALID_IMAGE");
+                }
+                job.write(data);
+                if (profile().rasterFormat == PrinterProfile.RASTER_ESC_STAR) {
+                    // ESC * bands set the line spacing
+                    job.style().forget();
+                }
+                return;
+            }
+            case "printLogo": {
+                String printer = connectedPrinter();
+                String key = operation.getString(1);
+                NvLogoStore.Logo logo = printer == null ? null : logoStore.get(printer, key);
+                if (logo == null) {
+                    throw new IllegalArgumentException("LOGO_NOT_STORED " + key);
+                }
+                command = logoCommand(printer, logo, optionalMap(operation, 2));
+                break;
+            }
+            case "openDrawer":
+                command = PrinterCommand.POS_Set_Cashbox(operation.getInt(1), operation.getInt(2), operation.getInt(3));
+                break;
+            case "cutOnePoint":
+                command = PrinterCommand.POS_Cut_One_Point();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown operation " + name);
+        }
+        if (command == null) {
+            throw new IllegalArgumentException("invalid arguments for " + name);
+        }
+        job.write(command);
+    }
+
+    @Nullable
+    private static ReadableMap optionalMap(ReadableArray arguments, int index) {
+        return arguments.size() > index && !arguments.isNull(index) ? arguments.getMap(index) : null;
+    }
+
+    private static void writeTable(EscPosWriter job, @Nullable TableLayout layout, List<CharSequence[]> rows,
+                                   TextOptions textOptions) throws UnsupportedEncodingException {
+        if (layout == null) {
+            throw new IllegalArgumentException("COLUNM_WIDTHS_TOO_LARGE");
+        }
+        StringBuilder table = layRows(layout, rows);
+        if (table.length() > 0 && !textOptions.write(job, table)) {
+            throw new IllegalArgumentException("invalid text options");
+        }
+    }
 
+    /**
+     * Register a receipt printed many times with printTemplate: printDocument operations whose texts,
+     * column texts, QR code contents and barcodes may hold {{name}} placeholders, and whose printTable
+     * rows may be a single placeholder. Everything else is encoded once here.
+     */
+    @ReactMethod
+    public void registerTemplate(String name, ReadableArray operations, final Promise promise) {
+        ReceiptTemplate template = new ReceiptTemplate(operations);
+        synchronized (style) {
+            try {
+                compileTemplate(template);
+            } catch (Exception e) {
+                promise.reject("INVALID_OPERATION", e.getMessage(), e);
+                return;
+            }
+            templates.put(name, template);
         }
+        promise.resolve(null);
+    }
 
-        /**  try to find the max row count of the table **/
-        int maxRowCount = 0;
-        for(int i=0;i<table.size()/*column count*/;i++){
-            List<String> rows = table.get(i); // row data in current column
-            if(rows.size()>maxRowCount){maxRowCount = rows.size();}// try to find the max row count;
+    @ReactMethod
+    public void unregisterTemplate(String name) {
+        synchronized (style) {
+            templates.remove(name);
         }
+    }
 
-        /** loop table again to fill the rows **/
-        StringBuilder[] rowsToPrint = new StringBuilder[maxRowCount];
-        for(int column=0;column<table.size()/*column count*/;column++){
-            List<String> rows = table.get(column); // row data in current column
-            for(int row=0;row<maxRowCount;row++){
-                if(rowsToPrint[row]==null){
-                    rowsToPrint[row] = new StringBuilder();
+    /**
+     * Print a registered template with the variables of one order, as one job.
+     */
+    @ReactMethod
+    public void printTemplate(String name, ReadableMap variables, final Promise promise) {
+        boolean sent;
+        synchronized (style) {
+            ReceiptTemplate template = templates.get(name);
+            if (template == null) {
+                promise.reject("TEMPLATE_NOT_REGISTERED");
+                return;
+            }
+            try {
+                if (!templateSetup().equals(template.compiledFor)) {
+                    compileTemplate(template);
                 }
-                if(row<rows.size()){
-                    //got the row of this column
-                    rowsToPrint[row].append(rows.get(row));
-                }else{
-                    int w =columnWidths.getInt(column);
-                    StringBuilder empty = new StringBuilder();
-                   for(int i=0;i<w;i++){
-                       empty.append(" ");
-                   }
-                    rowsToPrint[row].append(empty.toString());//Append spaces to ensure the format
+            } catch (Exception e) {
+                promise.reject("COMMAND_NOT_SEND", e.getMessage(), e);
+                return;
+            }
+            EscPosWriter job = newJob(template.chunkBytes + 1024);
+            try {
+                for (ReceiptTemplate.Segment segment : template.segments) {
+                    segment.write(job, variables);
                 }
+            } catch (IllegalArgumentException e) {
+                // a variable is missing or does not fit its operation; the modes written so far were never sent
+                style.forget();
+                promise.reject("INVALID_VARIABLES", e.getMessage(), e);
+                return;
+            } catch (Exception e) {
+                style.forget();
+                promise.reject("COMMAND_NOT_SEND", e.getMessage(), e);
+                return;
             }
+            if (template.initializes) {
+                downloadedImage = null;
+            }
+            sent = sendJob(job);
+        }
+        if (sent) {
+            promise.resolve(null);
+        } else {
+            promise.reject("COMMAND_NOT_SEND");
         }
+    }
 
-        /** loops the rows and print **/
-        for(int i=0;i<rowsToPrint.length;i++){
-            rowsToPrint[i].append("\n\r");//wrap line..
+    /**
+     * What the encoded chunks depend on, FS p logo numbers included; the template is compiled again when it changes.
+     */
+    private String templateSetup() {
+        PrinterProfile profile = profile();
+        return deviceWidth + "/" + profile.rasterFormat + "/" + profile.qrFormat + "/" + connectedPrinter()
+                + "/" + logoStore.generation();
+    }
+
+    /**
+     * Encode the runs of operations without placeholders, each from unknown modes, and parse the others.
+     * Called holding the style lock.
+     */
+    private void compileTemplate(ReceiptTemplate template) throws Exception {
+        template.clear();
+        String setup = templateSetup();
+        EscPosWriter run = null;
+        for (int i = 0; i < template.operations.size(); i++) {
+            ReadableArray operation = template.operations.getArray(i);
             try {
-//                byte[] toPrint = rowsToPrint[i].toString().getBytes("UTF-8");
-//                String text = new String(toPrint, Charset.forName(encoding));
-                if (!sendDataByte(PrinterCommand.POS_Print_Text(rowsToPrint[i].toString(), encoding, codepage, widthTimes, heigthTimes, fonttype))) {
-                    promise.reject("COMMAND_NOT_SEND");
-                    return;
+                if (ReceiptTemplate.hasPlaceholder(operation)) {
+                    ReceiptTemplate.Segment segment = boundSegment(operation);
+                    if (run != null) {
+                        template.addChunk(run);
+                        run = null;
+                    }
+                    template.segments.add(segment);
+                } else {
+                    if (run == null) {
+                        run = new EscPosWriter(new PrinterStyle());
+                    }
+                    writeOperation(run, operation);
+                    template.initializes |= "printerInit".equals(operation.getString(0));
                 }
-            }catch (Exception e){
-                e.printStackTrace();
+            } catch (Exception e) {
+                template.clear();
+                throw new IllegalArgumentException("operation " + i + ": " + e.getMessage(), e);
             }
         }
-        promise.resolve(null);
+        if (run != null) {
+            template.addChunk(run);
+        }
+        template.compiledFor = setup;
+    }
+
+    /**
+     * A template operation with placeholders, its options and column layout parsed once.
+     */
+    private ReceiptTemplate.Segment boundSegment(ReadableArray operation) throws Exception {
+        String name = operation.getString(0);
+        switch (name) {
+            case "printText": {
+                final String[] text = ReceiptTemplate.parts(operation.getString(1));
+                final TextOptions textOptions = checkedTextOptions(optionalMap(operation, 2));
+                return new ReceiptTemplate.Segment() {
+                    @Override
+                    public void write(EscPosWriter job, ReadableMap variables) throws Exception {
+                        String bound = ReceiptTemplate.bind(text, variables);
+                        if (bound.length() > 0) {
+                            textOptions.write(job, bound);
+                        }
+                    }
+                };
+            }
+            case "printColumn": {
+                ReadableArray widths = operation.getArray(1);
+                ReadableArray aligns = operation.getArray(2);
+                ReadableArray texts = operation.getArray(3);
+                if (texts.size() != widths.size() || widths.size() != aligns.size()) {
+                    throw new IllegalArgumentException("COLUMN_WIDTHS_ALIGNS_AND_TEXTS_NOT_MATCH");
+                }
+                final String[][] cells = ReceiptTemplate.parseAll(texts);
+                final TextOptions textOptions = checkedTextOptions(optionalMap(operation, 4));
+                final TableLayout layout = checkedLayout(widths, aligns, textOptions);
+                return new ReceiptTemplate.Segment() {
+                    @Override
+                    public void write(EscPosWriter job, ReadableMap variables) throws Exception {
+                        CharSequence[] row = ReceiptTemplate.bind(cells, variables);
+                        writeTable(job, layout, Collections.singletonList(row), textOptions);
+                    }
+                };
+            }
+            case "printTable": {
+                final TextOptions textOptions = checkedTextOptions(optionalMap(operation, 4));
+                final TableLayout layout = checkedLayout(operation.getArray(1), operation.getArray(2), textOptions);
+                if (operation.getType(3) == ReadableType.String) {
+                    final String rowsName = ReceiptTemplate.variable(operation.getString(3));
+                    if (rowsName == null) {
+                        throw new IllegalArgumentException("rows must be an array or a single placeholder");
+                    }
+                    return new ReceiptTemplate.Segment() {
+                        @Override
+                        public void write(EscPosWriter job, ReadableMap variables) throws Exception {
+                            ReadableArray rowTexts = variables.hasKey(rowsName) ? variables.getArray(rowsName) : null;
+                            if (rowTexts == null) {
+                                throw new IllegalArgumentException("missing variable " + rowsName);
+                            }
+                            List<CharSequence[]> rows = new ArrayList<CharSequence[]>(rowTexts.size());
+                            for (int i = 0; i < rowTexts.size(); i++) {
+                                rows.add(rowTexts(rowTexts.getArray(i)));
+                            }
+                            writeTable(job, layout, rows, textOptions);
+                        }
+                    };
+                }
+                ReadableArray rowTexts = operation.getArray(3);
+                final List<String[][]> rowCells = new ArrayList<String[][]>(rowTexts.size());
+                for (int i = 0; i < rowTexts.size(); i++) {
+                    rowCells.add(ReceiptTemplate.parseAll(rowTexts.getArray(i)));
+                }
+                return new ReceiptTemplate.Segment() {
+                    @Override
+                    public void write(EscPosWriter job, ReadableMap variables) throws Exception {
+                        List<CharSequence[]> rows = new ArrayList<CharSequence[]>(rowCells.size());
+                        for (String[][] cells : rowCells) {
+                            rows.add(ReceiptTemplate.bind(cells, variables));
+                        }
+                        writeTable(job, layout, rows, textOptions);
+                    }
+                };
+            }
+            case "printQRCode": {
+                final String[] content = ReceiptTemplate.parts(operation.getString(1));
+                final int size = operation.getInt(2);
+                final int correctionLevel = operation.getInt(3);
+                return new ReceiptTemplate.Segment() {
+                    @Override
+                    public void write(EscPosWriter job, ReadableMap variables) throws Exception {
+                        job.write(qrCode(ReceiptTemplate.bind(content, variables), size, correctionLevel));
+                    }
+                };
+            }
+            case "printBarCode": {
+                final String[] str = ReceiptTemplate.parts(operation.getString(1));
+                final int nType = operation.getInt(2);
+                final int nWidthX = operation.getInt(3);
+                final int nHeight = operation.getInt(4);
+                final int nHriFontType = operation.getInt(5);
+                final int nHriFontPosition = operation.getInt(6);
+                return new ReceiptTemplate.Segment() {
+                    @Override
+                    public void write(EscPosWriter job, ReadableMap variables) {
+                        byte[] command = barCode(ReceiptTemplate.bind(str, variables), nType, nWidthX, nHeight,
+                                nHriFontType, nHriFontPosition);
+                        if (command == null) {
+                            throw new IllegalArgumentException("invalid arguments for printBarCode");
+                        }
+                        job.write(command);
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("placeholders are not supported in " + name);
+        }
+    }
+
+    private static TextOptions checkedTextOptions(@Nullable ReadableMap options) throws UnsupportedEncodingException {
+        TextOptions textOptions = new TextOptions(options);
+        if (!textOptions.write(new EscPosWriter(16), " ")) {
+            throw new IllegalArgumentException("invalid text options");
+        }
+        return textOptions;
+    }
+
+    private TableLayout checkedLayout(ReadableArray columnWidths, ReadableArray columnAligns, TextOptions textOptions) {
+        if (columnWidths.size() != columnAligns.size()) {
+            throw new IllegalArgumentException("COLUMN_WIDTHS_ALIGNS_AND_TEXTS_NOT_MATCH");
+        }
+        TableLayout layout = tableLayout(columnWidths, columnAligns, textOptions);
+        if (layout == null) {
+            throw new IllegalArgumentException("COLUNM_WIDTHS_TOO_LARGE");
+        }
+        return layout;
     }
 
     @ReactMethod
@@ -315,24 +769,109 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
         deviceWidth = width;
     }
 
+    /**
+     * @param base64encodeStr base64 of the image, or a file:// or content:// URI
+     */
     @ReactMethod
     public void printPic(String base64encodeStr, @Nullable  ReadableMap options) {
+        byte[] data = picCommand(base64encodeStr, options);
+        if (data == null) {
+            return;
+        }
+        // one write for the whole job
+        synchronized (style) {
+            EscPosWriter job = newJob(data.length + 12);
+            job.init().lf().write(data).feed(30).cut(1).init();
+            sendJob(job);
+        }
+    }
+
+    /**
+     * The image of printPic in the raster format of the printer.
+     *
+     * @return null when it cannot be read or does not fit, the reason is logged
+     */
+    @Nullable
+    private byte[] picCommand(String base64encodeStr, @Nullable ReadableMap options) {
         int width = 0;
         int leftPadding = 0;
+        int dither = PrintPicture.DITHER_THRESHOLD;
+        boolean packed = false;
+        int resolution = RESOLUTION_FULL;
+        boolean crop = false;
         if(options!=null){
             width = options.hasKey("width") ? options.getInt("width") : 0;
             leftPadding = options.hasKey("left")?options.getInt("left") : 0;
+            dither = options.hasKey("dither") ? options.getInt("dither") : PrintPicture.DITHER_THRESHOLD;
+            packed = options.hasKey("packed") && options.getBoolean("packed");
+            resolution = options.hasKey("resolution") ? options.getInt("resolution") : RESOLUTION_FULL;
+            crop = options.hasKey("crop") && options.getBoolean("crop");
         }
 
-        //cannot larger then devicesWith;
-        if(width > deviceWidth || width == 0){
-            width = deviceWidth;
+        int nMode = 0;
+        byte[] data;
+        if (packed) {
+            // already 1-bit rows of the given width, nothing to decode or dither
+            if (width <= 0 || width + leftPadding > deviceWidth) {
+                Log.e(TAG, "packed image needs a width within the printer width");
+                return null;
+            }
+            try {
+                byte[] bits = ImageSource.readBytes(reactContext, base64encodeStr);
+                data = profile().rasterFormat == PrinterProfile.RASTER_ESC_STAR
+                        ? PrintPicture.packedToEscBitImageCmd(bits, width, leftPadding)
+                        : PrintPicture.eachLinePackedToCmd(bits, width, leftPadding, nMode);
+            } catch (IOException e) {
+                Log.e(TAG, "cannot read image", e);
+                return null;
+            }
+        } else {
+            //cannot larger then devicesWith;
+            if (width > deviceWidth || width == 0) {
+                width = deviceWidth;
+            }
+            if (resolution == RESOLUTION_AUTO) {
+                // halved both ways, a quarter of the bytes, on a slow link
+                PrinterProfile p = profile();
+                int rate = p.linkBytesPerSecond > 0 ? p.linkBytesPerSecond : mService.getLinkBytesPerSecond();
+                nMode = rate > 0 && rate < p.slowLinkBytesPerSecond ? RESOLUTION_HALF : RESOLUTION_FULL;
+            } else {
+                nMode = resolution & 3;
+            }
+            data = encodePic(base64encodeStr, width, leftPadding, nMode, dither, profile().rasterFormat, crop);
         }
+        return data;
+    }
 
-        byte[] bytes = Base64.decode(base64encodeStr, Base64.DEFAULT);
-        Bitmap mBitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
-        int nMode = 0;
-        if (mBitmap != null) {
+    private byte[] encodePic(String source, int width, int leftPadding, int nMode, int dither, int format,
+                             boolean crop) {
+        CharSequence identity = ImageSource.cacheIdentity(source);
+        RasterCache cache = RasterCache.getInstance();
+        RasterCache.Key key = identity == null ? null
+                : format == PrinterProfile.RASTER_ESC_STAR ? RasterCache.escposBitImageKey(identity, width, leftPadding, dither)
+                : RasterCache.escposKey(identity, width, leftPadding, nMode, dither);
+        if (key != null && crop) {
+            key = key.cropped();
+        }
+        byte[] data = key == null ? null : cache.get(key);
+        if (data == null) {
+            Bitmap mBitmap = decodePic(source, width);
+            if (mBitmap == null) {
+                return null;
+            }
+            if (crop) {
+                // only the content is scaled and encoded, at the scale of the whole image;
+                // the cropped left margin stays as left padding so the printer's own left
+                // margin is left alone
+                int[] box = PrintPicture.contentBounds(mBitmap);
+                if (box == null) {
+                    return new byte[0];
+                }
+                int srcWidth = mBitmap.getWidth();
+                leftPadding += box[0] * width / srcWidth;
+                width = Math.max(1, (box[2] - box[0]) * width / srcWidth);
+                mBitmap = Bitmap.createBitmap(mBitmap, box[0], box[1], box[2] - box[0], box[3] - box[1]);
+            }
             /**
              * Parameters:
              * mBitmap  要打印的图片
@@ -340,21 +879,399 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
              * nMode    打印模式
              * Returns: byte[]
              */
-            byte[] data = PrintPicture.POS_PrintBMP(mBitmap, width, nMode, leftPadding);
-            //  SendDataByte(buffer);
-            sendDataByte(Command.ESC_Init);
-            sendDataByte(Command.LF);
-            sendDataByte(data);
-            sendDataByte(PrinterCommand.POS_Set_PrtAndFeedPaper(30));
-            sendDataByte(PrinterCommand.POS_Set_Cut(1));
-            sendDataByte(PrinterCommand.POS_Set_PrtInit());
+            if (format == PrinterProfile.RASTER_ESC_STAR) {
+                data = PrintPicture.POS_PrintBMP_BitImage(mBitmap, width, leftPadding, dither);
+            } else {
+                data = PrintPicture.POS_PrintBMP(mBitmap, width, nMode, leftPadding, dither);
+            }
+            if (key != null) {
+                cache.put(key, data);
+            }
         }
+        return data;
     }
 
+    /**
+     * Settings of the connected printer, or of no printer in particular when none is connected.
+     * rasterFormat: 0 GS v 0 rows (default), 1 ESC * 24 dot columns.
+     * qrFormat: 0 QR codes as images (default), 1 GS ( k, encoded by the printer.
+     * linkBytesPerSecond: the link speed printPic AUTO goes by, 0 (default) to measure it.
+     * slowLinkBytesPerSecond: the speed under which printPic AUTO halves the resolution, 4096 by default.
+     */
+    @ReactMethod
+    public void setPrinterProfile(ReadableMap options) {
+        PrinterProfile p = profile();
+        if (options.hasKey("rasterFormat")) {
+            p.rasterFormat = options.getInt("rasterFormat");
+        }
+        if (options.hasKey("qrFormat")) {
+            p.qrFormat = options.getInt("qrFormat");
+        }
+        if (options.hasKey("linkBytesPerSecond")) {
+            p.linkBytesPerSecond = options.getInt("linkBytesPerSecond");
+        }
+        if (options.hasKey("slowLinkBytesPerSecond")) {
+            p.slowLinkBytesPerSecond = options.getInt("slowLinkBytesPerSecond");
+        }
+        p.save(profilePrefs, profileAddress);
+    }
+
+    @ReactMethod
+    public void getPrinterProfile(final Promise promise) {
+        PrinterProfile p = profile();
+        WritableMap result = Arguments.createMap();
+        result.putInt("rasterFormat", p.rasterFormat);
+        result.putInt("qrFormat", p.qrFormat);
+        result.putInt("linkBytesPerSecond", p.linkBytesPerSecond);
+        result.putInt("slowLinkBytesPerSecond", p.slowLinkBytesPerSecond);
+        promise.resolve(result);
+    }
+
+    /**
+     * Print the image once as GS v 0 rows and once as ESC * columns, each followed by a status request
+     * the printer answers only once it has processed the image, and resolve how long each took in ms,
+     * -1 when the printer did not answer, to pick the rasterFormat of the printer profile.
+     */
+    @ReactMethod
+    public void compareRasterFormats(final String base64encodeStr, @Nullable ReadableMap options, final Promise promise) {
+        int w = options != null && options.hasKey("width") ? options.getInt("width") : 0;
+        final int width = w > deviceWidth || w == 0 ? deviceWidth : w;
+        final int dither = options != null && options.hasKey("dither") ? options.getInt("dither")
+                : PrintPicture.DITHER_THRESHOLD;
+        if (connectedPrinter() == null) {
+            promise.reject("COMMAND_NOT_SEND");
+            return;
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap mBitmap = decodePic(base64encodeStr, width);
+                if (mBitmap == null) {
+                    promise.reject("INVALID_IMAGE");
+                    return;
+                }
+                long rows = timePrint(PrintPicture.POS_PrintBMP(mBitmap, width, 0, 0, dither));
+                long columns = timePrint(PrintPicture.POS_PrintBMP_BitImage(mBitmap, width, 0, dither));
+                synchronized (style) {
+                    // ESC * bands leave the default line spacing behind
+                    style.forget();
+                }
+                WritableMap result = Arguments.createMap();
+                result.putDouble("gsv0", rows);
+                result.putDouble("escStar", columns);
+                if (rows >= 0 && columns >= 0) {
+                    result.putInt("faster", columns < rows ? PrinterProfile.RASTER_ESC_STAR : PrinterProfile.RASTER_GS_V_0);
+                }
+                promise.resolve(result);
+            }
+        }, "compareRasterFormats").start();
+    }
+
+    private long timePrint(byte[] data) {
+        CountDownLatch reply = new CountDownLatch(1);
+        statusReply = reply;
+        try {
+            long start = SystemClock.elapsedRealtime();
+            if (!sendDataByte(data) || !sendDataByte(Command.GS_r)
+                    || !reply.await(STATUS_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                return -1;
+            }
+            return SystemClock.elapsedRealtime() - start;
+        } catch (InterruptedException e) {
+            return -1;
+        } finally {
+            statusReply = null;
+        }
+    }
+
+    private synchronized PrinterProfile profile() {
+        String printer = connectedPrinter();
+        String address = printer == null ? "" : printer;
+        if (profile == null || !address.equals(profileAddress)) {
+            profile = PrinterProfile.load(profilePrefs, address);
+            profileAddress = address;
+        }
+        return profile;
+    }
+
+    private Bitmap decodePic(String source, int width) {
+        try {
+            return ImageSource.decodeBitmap(reactContext, source, width);
+        } catch (IOException e) {
+            Log.e(TAG, "cannot read image", e);
+            return null;
+        }
+    }
+
+    /**
+     * Print a small image (stamps, separators, icons) through the downloaded bit image of the printer.
+     * The image is sent once with GS * and printed with GS / for as long as it stays resident, that is
+     * until another image is downloaded, the printer is initialized or the connection changes.
+     */
+    @ReactMethod
+    public void printDownloadedPic(String base64encodeStr, @Nullable ReadableMap options, final Promise promise) {
+        int width = 0;
+        int dither = PrintPicture.DITHER_THRESHOLD;
+        int mode = 0;
+        if (options != null) {
+            width = options.hasKey("width") ? options.getInt("width") : 0;
+            dither = options.hasKey("dither") ? options.getInt("dither") : PrintPicture.DITHER_THRESHOLD;
+            mode = options.hasKey("mode") ? options.getInt("mode") : 0;
+        }
+        if (width > deviceWidth || width == 0) {
+            width = deviceWidth;
+        }
+
+        byte[] print = PrinterCommand.POS_Print_DownloadedBitImage(mode);
+        if (print == null) {
+            promise.reject("INVALID_MODE");
+            return;
+        }
+        CharSequence identity = ImageSource.cacheIdentity(base64encodeStr);
+        RasterCache.Key key = identity == null ? null : RasterCache.downloadKey(identity, width, dither);
+        if (key == null || !key.equals(downloadedImage)) {
+            RasterCache cache = RasterCache.getInstance();
+            byte[] data = key == null ? null : cache.get(key);
+            if (data == null) {
+                Bitmap mBitmap = decodePic(base64encodeStr, width);
+                if (mBitmap == null) {
+                    promise.reject("INVALID_IMAGE");
+                    return;
+                }
+                data = PrintPicture.POS_DownloadBitImage(mBitmap, width, dither);
+                if (data == null) {
+                    promise.reject("IMAGE_TOO_LARGE");
+                    return;
+                }
+                if (key != null) {
+                    cache.put(key, data);
+                }
+            }
+            if (!sendDataByte(data)) {
+                promise.reject("COMMAND_NOT_SEND");
+                return;
+            }
+            downloadedImage = key;
+        }
+        if (sendDataByte(print)) {
+            promise.resolve(null);
+        } else {
+            promise.reject("COMMAND_NOT_SEND");
+        }
+    }
+
+    /**
+     * Byte budget of the encoded image cache shared by printPic and the TSC image option, 0 disables it.
+     */
+    @ReactMethod
+    public void setImageCacheSize(int bytes) {
+        RasterCache.getInstance().setMaxBytes(bytes);
+    }
+
+    /**
+     * Byte budget of the on-disk image cache that survives app restarts, 0 disables it.
+     */
+    @ReactMethod
+    public void setImageDiskCacheSize(int bytes) {
+        DiskRasterCache disk = RasterCache.getInstance().getDiskCache();
+        if (disk != null) {
+            disk.setMaxBytes(bytes);
+        }
+    }
+
+    @ReactMethod
+    public void clearImageCache() {
+        RasterCache.getInstance().clear();
+    }
+
+    @ReactMethod
+    public void getImageCacheStats(final Promise promise) {
+        RasterCache cache = RasterCache.getInstance();
+        WritableMap stats = Arguments.createMap();
+        stats.putDouble("hits", cache.getHits());
+        stats.putDouble("misses", cache.getMisses());
+        stats.putDouble("size", cache.getSize());
+        stats.putDouble("maxSize", cache.getMaxBytes());
+        stats.putInt("count", cache.getCount());
+        stats.putDouble("diskHits", cache.getDiskHits());
+        DiskRasterCache disk = cache.getDiskCache();
+        if (disk != null) {
+            stats.putDouble("diskSize", disk.getSize());
+            stats.putDouble("diskMaxSize", disk.getMaxBytes());
+        }
+        promise.resolve(stats);
+    }
+
+    /**
+     * Byte budget of the cache of finished printQRCode and printBarCode commands, 0 disables it.
+     */
+    @ReactMethod
+    public void setCodeCacheSize(int bytes) {
+        codeCache.setMaxBytes(bytes);
+    }
+
+    @ReactMethod
+    public void getCodeCacheStats(final Promise promise) {
+        WritableMap stats = Arguments.createMap();
+        long hits = codeCache.getHits();
+        long misses = codeCache.getMisses();
+        stats.putDouble("hits", hits);
+        stats.putDouble("misses", misses);
+        stats.putDouble("hitRate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        stats.putDouble("size", codeCache.getSize());
+        stats.putDouble("maxSize", codeCache.getMaxBytes());
+        stats.putInt("count", codeCache.getCount());
+        promise.resolve(stats);
+    }
+
+    /**
+     * Upload a logo into the NV memory of the connected printer once, to print it later by key
+     * with printLogo. Resolves false without sending anything when the same image was already
+     * stored under the key with the same options.
+     */
+    @ReactMethod
+    public void storeLogo(String key, String base64encodeStr, @Nullable ReadableMap options, final Promise promise) {
+        String printer = connectedPrinter();
+        if (printer == null) {
+            promise.reject("COMMAND_NOT_SEND");
+            return;
+        }
+        int width = 0;
+        int dither = PrintPicture.DITHER_THRESHOLD;
+        int store = NvLogoStore.STORE_FS;
+        boolean force = false;
+        if (options != null) {
+            width = options.hasKey("width") ? options.getInt("width") : 0;
+            dither = options.hasKey("dither") ? options.getInt("dither") : PrintPicture.DITHER_THRESHOLD;
+            store = options.hasKey("store") ? options.getInt("store") : NvLogoStore.STORE_FS;
+            force = options.hasKey("force") && options.getBoolean("force");
+        }
+        if (width > deviceWidth || width == 0) {
+            width = deviceWidth;
+        }
+
+        // a content URI cannot be checked for changes, it gets an empty id and is always uploaded
+        CharSequence identity = ImageSource.cacheIdentity(base64encodeStr);
+        String id = identity == null ? "" : Long.toHexString(RasterCache.hash(identity)) + "-" + identity.length()
+                + "-" + width + "-" + dither;
+        NvLogoStore.Logo old = logoStore.get(printer, key);
+        if (!force && old != null && old.store == store && !id.isEmpty() && old.id.equals(id)) {
+            promise.resolve(false);
+            return;
+        }
+        Bitmap mBitmap = decodePic(base64encodeStr, width);
+        if (mBitmap == null) {
+            promise.reject("INVALID_IMAGE");
+            return;
+        }
+
+        try {
+            // the manifest changes only once the printer took the commands, so FS numbers stay true
+            byte[] command;
+            if (store == NvLogoStore.STORE_GS) {
+                int slot = old != null && old.store == store ? old.slot : logoStore.nextGsSlot(printer);
+                NvLogoStore.Logo logo = new NvLogoStore.Logo(key, id, store, slot);
+                byte[] pix = PrintPicture.toScaledBWPix(mBitmap, width, dither);
+                int w = ((width + 7) / 8) * 8;
+                command = PrinterCommand.POS_Set_NvGraphics(logo.kc1(), logo.kc2(),
+                        PrintPicture.pixToEscRastBitImageCmd(pix), w, pix.length / w);
+                if (command == null || !sendDataByte(command)) {
+                    promise.reject("COMMAND_NOT_SEND");
+                    return;
+                }
+                if (old != null && old.store == NvLogoStore.STORE_FS) {
+                    // the FS logos after it move down one number, the set goes out again without it
+                    List<byte[]> images = logoStore.fsImagesWith(printer, key, null);
+                    if (!images.isEmpty() && !sendDataByte(
+                            PrinterCommand.POS_Set_NvBitImages(images.toArray(new byte[images.size()][])))) {
+                        promise.reject("COMMAND_NOT_SEND");
+                        return;
+                    }
+                }
+                logoStore.put(printer, logo, null);
+            } else {
+                // FS q replaces every NV bit image, so the whole set goes out again
+                NvLogoStore.Logo logo = new NvLogoStore.Logo(key, id, store, 0);
+                byte[] fsData = PrintPicture.POS_NvBitImage(mBitmap, width, dither);
+                List<byte[]> images = logoStore.fsImagesWith(printer, key, fsData);
+                command = PrinterCommand.POS_Set_NvBitImages(images.toArray(new byte[images.size()][]));
+                if (command == null || !sendDataByte(command)) {
+                    // the printer still holds the previous set, so does the manifest
+                    promise.reject("COMMAND_NOT_SEND");
+                    return;
+                }
+                if (old != null && old.store == NvLogoStore.STORE_GS) {
+                    sendDataByte(PrinterCommand.POS_Delete_NvGraphics(old.kc1(), old.kc2()));
+                }
+                logoStore.put(printer, logo, fsData);
+            }
+            promise.resolve(true);
+        } catch (IOException e) {
+            promise.reject(e.getMessage(), e);
+        }
+    }
+
+    @ReactMethod
+    public void printLogo(String key, @Nullable ReadableMap options, final Promise promise) {
+        String printer = connectedPrinter();
+        NvLogoStore.Logo logo = printer == null ? null : logoStore.get(printer, key);
+        if (logo == null) {
+            promise.reject("LOGO_NOT_STORED");
+            return;
+        }
+        if (sendDataByte(logoCommand(printer, logo, options))) {
+            promise.resolve(null);
+        } else {
+            promise.reject("COMMAND_NOT_SEND");
+        }
+    }
+
+    private byte[] logoCommand(String printer, NvLogoStore.Logo logo, @Nullable ReadableMap options) {
+        if (logo.store == NvLogoStore.STORE_GS) {
+            return PrinterCommand.POS_Print_NvGraphics(logo.kc1(), logo.kc2());
+        }
+        int mode = options != null && options.hasKey("mode") ? options.getInt("mode") : 0;
+        return PrinterCommand.POS_Print_NvBitImage(logoStore.fsNumber(printer, logo.key), mode);
+    }
+
+    /**
+     * Keys of the logos stored on the connected printer.
+     */
+    @ReactMethod
+    public void getStoredLogos(final Promise promise) {
+        WritableArray keys = Arguments.createArray();
+        String printer = connectedPrinter();
+        if (printer != null) {
+            for (NvLogoStore.Logo logo : logoStore.logos(printer)) {
+                keys.pushString(logo.key);
+            }
+        }
+        promise.resolve(keys);
+    }
+
+    /**
+     * Forget what was stored on the connected printer, so the next storeLogo uploads again.
+     * Nothing is sent to the printer.
+     */
+    @ReactMethod
+    public void clearStoredLogos(final Promise promise) {
+        String printer = connectedPrinter();
+        try {
+            if (printer != null) {
+                logoStore.clear(printer);
+            }
+            promise.resolve(null);
+        } catch (IOException e) {
+            promise.reject(e.getMessage(), e);
+        }
+    }
 
     @ReactMethod
     public void selfTest(@Nullable Callback cb) {
         boolean result = sendDataByte(PrinterCommand.POS_Set_PrtSelfTest());
+        synchronized (style) {
+            style.forget();
+        }
         if (cb != null) {
             cb.invoke(result);
         }
@@ -375,7 +1292,11 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
 
     @ReactMethod
     public void setBlob(int weight,final Promise promise) {
-        if(sendDataByte(PrinterCommand.POS_Set_Bold(weight))){
+        boolean sent;
+        synchronized (style) {
+            sent = sendJob(newJob(6).bold(weight));
+        }
+        if(sent){
             promise.resolve(null);
         }else{
             promise.reject("COMMAND_NOT_SEND");
@@ -386,38 +1307,7 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
     public void printQRCode(String content, int size, int correctionLevel, final Promise promise) {
         try {
             Log.i(TAG, "生成的文本：" + content);
-            // 把输入的文本转为二维码
-            Hashtable<EncodeHintType, Object> hints = new Hashtable<EncodeHintType, Object>();
-            hints.put(EncodeHintType.CHARACTER_SET, "utf-8");
-            hints.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.forBits(correctionLevel));
-            BitMatrix bitMatrix = new QRCodeWriter().encode(content,
-                    BarcodeFormat.QR_CODE, size, size, hints);
-
-            int width = bitMatrix.getWidth();
-            int height = bitMatrix.getHeight();
-
-            System.out.println("w:" + width + "h:"
-                    + height);
-
-            int[] pixels = new int[width * height];
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    if (bitMatrix.get(x, y)) {
-                        pixels[y * width + x] = 0xff000000;
-                    } else {
-                        pixels[y * width + x] = 0xffffffff;
-                    }
-                }
-            }
-
-            Bitmap bitmap = Bitmap.createBitmap(width, height,
-                    Bitmap.Config.ARGB_8888);
-
-            bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
-
-            //TODO: may need a left padding to align center.
-            byte[] data = PrintPicture.POS_PrintBMP(bitmap, size, 0, 0);
-            if (sendDataByte(data)) {
+            if (sendDataByte(qrCode(content, size, correctionLevel))) {
                 promise.resolve(null);
             } else {
                 promise.reject("COMMAND_NOT_SEND");
@@ -427,11 +1317,77 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
         }
     }
 
+    private byte[] qrCode(String content, int size, int correctionLevel)
+            throws WriterException, UnsupportedEncodingException {
+        int format = profile().qrFormat;
+        RasterCache.Key key = RasterCache.qrKey(content, size, correctionLevel, format);
+        byte[] data = codeCache.get(key);
+        if (data == null) {
+            // 把输入的文本转为二维码
+            Hashtable<EncodeHintType, Object> hints = new Hashtable<EncodeHintType, Object>();
+            hints.put(EncodeHintType.CHARACTER_SET, "utf-8");
+            ErrorCorrectionLevel level = ErrorCorrectionLevel.forBits(correctionLevel);
+            ByteMatrix matrix = Encoder.encode(content, level, hints).getMatrix();
+
+            if (format == PrinterProfile.QR_GS_K) {
+                data = nativeQRCode(content, size, matrix.getWidth(), level);
+            }
+            if (data == null) {
+                //TODO: may need a left padding to align center.
+                data = qrCodeRaster(matrix, size);
+            }
+            codeCache.put(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * GS ( k for the printer to encode the QR code itself, tens of bytes instead of an image.
+     * The module size is the one the image would be scaled to, so the code prints about as large.
+     *
+     * @param modules modules per side of the code encoded here, the printer picks the same version
+     * @return null when the printer cannot take the data, to print an image instead
+     */
+    private static byte[] nativeQRCode(String content, int size, int modules, ErrorCorrectionLevel level)
+            throws UnsupportedEncodingException {
+        int moduleSize = Math.max(1, Math.min(16, size / (modules + 2 * QR_QUIET_ZONE)));
+        return PrinterCommand.POS_Print_QRCode(content.getBytes("UTF-8"), moduleSize, level.ordinal());
+    }
+
+    /**
+     * The QR code as GS v 0 rows written straight from its modules, laid out as QRCodeWriter would
+     * render it in a size x size image: the largest integer scale with the quiet zone, centered.
+     */
+    private static byte[] qrCodeRaster(ByteMatrix matrix, int size) {
+        int columns = matrix.getWidth();
+        int rows = matrix.getHeight();
+        byte[][] array = matrix.getArray();
+        byte[] modules = new byte[columns * rows];
+        for (int y = 0; y < rows; y++) {
+            System.arraycopy(array[y], 0, modules, y * columns, columns);
+        }
+        int outputWidth = Math.max(size, columns + 2 * QR_QUIET_ZONE);
+        int outputHeight = Math.max(size, rows + 2 * QR_QUIET_ZONE);
+        int scale = Math.min(outputWidth / (columns + 2 * QR_QUIET_ZONE), outputHeight / (rows + 2 * QR_QUIET_ZONE));
+        return RasterCommands.moduleRasterLines(modules, columns, rows, scale,
+                (outputWidth - columns * scale) / 2, (outputHeight - rows * scale) / 2,
+                (outputWidth + 7) / 8 * 8, outputHeight);
+    }
+
     @ReactMethod
     public void printBarCode(String str, int nType, int nWidthX, int nHeight,
                              int nHriFontType, int nHriFontPosition) {
-        byte[] command = PrinterCommand.getBarCodeCommand(str, nType, nWidthX, nHeight, nHriFontType, nHriFontPosition);
-        sendDataByte(command);
+        sendDataByte(barCode(str, nType, nWidthX, nHeight, nHriFontType, nHriFontPosition));
+    }
+
+    private byte[] barCode(String str, int nType, int nWidthX, int nHeight, int nHriFontType, int nHriFontPosition) {
+        RasterCache.Key key = RasterCache.barcodeKey(str, nType, nWidthX, nHeight, nHriFontType, nHriFontPosition);
+        byte[] command = codeCache.get(key);
+        if (command == null) {
+            command = PrinterCommand.getBarCodeCommand(str, nType, nWidthX, nHeight, nHriFontType, nHriFontPosition);
+            codeCache.put(key, command);
+        }
+        return command;
     }
 
     @ReactMethod
@@ -457,52 +1413,100 @@ public class RNBluetoothEscposPrinterModule extends ReactContextBaseJavaModule
         }
     }    
 
+    private String connectedPrinter() {
+        if (mService.getState() != BluetoothService.STATE_CONNECTED) {
+            return null;
+        }
+        return mService.getLastConnectedDeviceAddress();
+    }
+
     private boolean sendDataByte(byte[] data) {
         if (data==null || mService.getState() != BluetoothService.STATE_CONNECTED) {
             return false;
         }
-        mService.write(data);
-        return true;
+        if (data.length >= 2 && data[0] == Command.ESC_Init[0] && data[1] == Command.ESC_Init[1]) {
+            synchronized (style) {
+                style.reset();
+            }
+        }
+        return write(data);
     }
 
-    // 根据Unicode编码完美的判断中文汉字和符号
-    private static boolean isChinese(char c) {
-        Character.UnicodeBlock ub = Character.UnicodeBlock.of(c);
-        if (ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
-                || ub == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
-                || ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
-                || ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B
-                || ub == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
-                || ub == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS
-                || ub == Character.UnicodeBlock.GENERAL_PUNCTUATION) {
-            return true;
+    /**
+     * A job written with {@link #style}, called holding its lock. The style is forgotten first when
+     * the connection changed since it was last used.
+     */
+    private EscPosWriter newJob(int capacity) {
+        int changes = connectionChanges.get();
+        if (changes != styleConnection) {
+            style.forget();
+            styleConnection = changes;
         }
-        return false;
+        return new EscPosWriter(capacity, style);
     }
 
-    @Override
-    public void onBluetoothServiceStateChanged(int state, Map<String, Object> boundle) {
+    /**
+     * Send a job written with {@link #style}, called holding its lock. Nothing is sent when every
+     * mode the job set was already in effect.
+     */
+    private boolean sendJob(EscPosWriter job) {
+        if (mService.getState() != BluetoothService.STATE_CONNECTED) {
+            style.forget();
+            return false;
+        }
+        return job.size() == 0 || write(job.toByteArray());
+    }
 
+    private boolean write(byte[] data) {
+        if (data.length >= 2 && (data[0] == Command.ESC_Init[0] && data[1] == Command.ESC_Init[1]
+                || data[0] == Command.FS_q[0] && data[1] == Command.FS_q[1])) {
+            // ESC @ and FS q both clear the downloaded bit image
+            downloadedImage = null;
+        }
+        mService.write(data);
+        return true;
     }
 
-    /****************************************************************************************************/
+    @Override
+    public void onBluetoothServiceStateChanged(int state, Map<String, Object> boundle) {
+        CountDownLatch reply = statusReply;
+        if (state == BluetoothService.MESSAGE_READ && reply != null) {
+            reply.countDown();
+        }
+        if (state != BluetoothService.MESSAGE_READ && state != BluetoothService.MESSAGE_WRITE) {
+            // connecting, connected or lost: the printer RAM no longer holds what was sent before
+            downloadedImage = null;
+            connectionChanges.incrementAndGet();
+        }
 
-    private static class ColumnSplitedString{
-        private int shorter;
-        private String str;
+    }
 
-        public ColumnSplitedString(int shorter, String str) {
-            this.shorter = shorter;
-            this.str = str;
-        }
+    /**
+     * The options of printText, printColumn and printTable.
+     */
+    private static class TextOptions {
+        final String encoding;
+        final int codepage;
+        final int widthTimes;
+        final int heigthTimes;
+        final int fonttype;
 
-        public int getShorter() {
-            return shorter;
+        TextOptions(@Nullable ReadableMap options) {
+            encoding = options != null && options.hasKey("encoding") ? options.getString("encoding") : "GBK";
+            codepage = options != null && options.hasKey("codepage") ? options.getInt("codepage") : 0;
+            widthTimes = options != null && options.hasKey("widthtimes") ? options.getInt("widthtimes") : 0;
+            heigthTimes = options != null && options.hasKey("heigthtimes") ? options.getInt("heigthtimes") : 0;
+            fonttype = options != null && options.hasKey("fonttype") ? options.getInt("fonttype") : 0;
         }
 
-        public String getStr() {
-            return str;
+        /**
+         * @return false when the options are out of range, nothing written
+         */
+        boolean write(EscPosWriter job, CharSequence text) throws UnsupportedEncodingException {
+            return PrinterCommand.POS_Print_Text(job, text, encoding, codepage, widthTimes, heigthTimes, fonttype);
         }
     }
 
+    /****************************************************************************************************/
+
 }
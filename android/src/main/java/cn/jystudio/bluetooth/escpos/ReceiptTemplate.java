@@ -0,0 +1,189 @@
+package cn.jystudio.bluetooth.escpos;
+
+import cn.jystudio.bluetooth.escpos.command.sdk.EscPosWriter;
+import cn.jystudio.bluetooth.escpos.command.sdk.PrinterStyle;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A receipt registered once and printed for every order, made of printDocument operations whose
+ * strings may hold {{name}} placeholders.
+ * <p>
+ * Compiling encodes each run of operations without placeholders into one byte chunk, written from
+ * unknown modes so it prints the same whatever the printer was left in. The other operations keep
+ * their parsed options and column layouts, printing only binds the variables of the order.
+ */
+class ReceiptTemplate {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    interface Segment {
+        void write(EscPosWriter job, ReadableMap variables) throws Exception;
+    }
+
+    // copied once into Java objects rather than keeping the native bridge array, read through JNI
+    final ReadableArray operations;
+    final List<Segment> segments = new ArrayList<Segment>();
+    // the printer setup (width, formats, address) the segments were compiled for
+    String compiledFor;
+    int chunkBytes;
+    // whether a chunk holds ESC @, which clears the downloaded bit image
+    boolean initializes;
+
+    ReceiptTemplate(ReadableArray operations) {
+        this.operations = JavaOnlyArray.deepClone(operations);
+    }
+
+    void clear() {
+        segments.clear();
+        compiledFor = null;
+        chunkBytes = 0;
+        initializes = false;
+    }
+
+    /**
+     * The bytes written by a run of operations, and the modes they leave the printer in.
+     */
+    void addChunk(EscPosWriter run) {
+        final byte[] bytes = run.toByteArray();
+        final PrinterStyle after = new PrinterStyle();
+        after.copyFrom(run.style());
+        chunkBytes += bytes.length;
+        segments.add(new Segment() {
+            @Override
+            public void write(EscPosWriter job, ReadableMap variables) {
+                job.write(bytes);
+                job.style().copyFrom(after);
+            }
+        });
+    }
+
+    /**
+     * Whether an argument of the operation holds a placeholder. Options maps are not looked into.
+     */
+    static boolean hasPlaceholder(ReadableArray operation) {
+        return hasPlaceholder(operation, 1);
+    }
+
+    private static boolean hasPlaceholder(ReadableArray array, int from) {
+        for (int i = from; i < array.size(); i++) {
+            if (array.getType(i) == ReadableType.String && parse(array.getString(i)) != null) {
+                return true;
+            }
+            if (array.getType(i) == ReadableType.Array && hasPlaceholder(array.getArray(i), 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Split a string into literal text and variable names, alternately, starting with text.
+     *
+     * @return null when it holds no placeholder
+     */
+    @Nullable
+    static String[] parse(String text) {
+        int open = text.indexOf(OPEN);
+        if (open < 0) {
+            return null;
+        }
+        List<String> parts = new ArrayList<String>();
+        int from = 0;
+        while (open >= 0) {
+            int close = text.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                break;
+            }
+            parts.add(text.substring(from, open));
+            parts.add(text.substring(open + OPEN.length(), close).trim());
+            from = close + CLOSE.length();
+            open = text.indexOf(OPEN, from);
+        }
+        if (parts.isEmpty()) {
+            return null;
+        }
+        parts.add(text.substring(from));
+        return parts.toArray(new String[parts.size()]);
+    }
+
+    /**
+     * The name of the variable when the string is a placeholder and nothing else, as the rows of a
+     * printTable operation.
+     */
+    @Nullable
+    static String variable(String text) {
+        String[] parts = parse(text);
+        return parts != null && parts.length == 3 && parts[0].isEmpty() && parts[2].isEmpty() ? parts[1] : null;
+    }
+
+    static String bind(String[] parts, ReadableMap variables) {
+        if (parts.length == 1) {
+            return parts[0];
+        }
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if ((i & 1) == 0) {
+                out.append(parts[i]);
+            } else {
+                out.append(value(variables, parts[i]));
+            }
+        }
+        return out.toString();
+    }
+
+    static String[] bind(String[][] parts, ReadableMap variables) {
+        String[] texts = new String[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            texts[i] = bind(parts[i], variables);
+        }
+        return texts;
+    }
+
+    /**
+     * The strings of an array with their placeholders parsed, a string without any as a single part.
+     */
+    static String[][] parseAll(ReadableArray texts) {
+        String[][] parts = new String[texts.size()][];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = parts(texts.getString(i));
+        }
+        return parts;
+    }
+
+    /**
+     * Like {@link #parse}, a string without placeholder being a single part.
+     */
+    static String[] parts(String text) {
+        String[] parsed = parse(text);
+        return parsed != null ? parsed : new String[]{text};
+    }
+
+    private static String value(ReadableMap variables, String name) {
+        if (!variables.hasKey(name)) {
+            throw new IllegalArgumentException("missing variable " + name);
+        }
+        switch (variables.getType(name)) {
+            case Null:
+                return "";
+            case String:
+                return variables.getString(name);
+            case Number: {
+                // as JavaScript prints it, 3 rather than 3.0
+                double number = variables.getDouble(name);
+                return number == Math.rint(number) && !Double.isInfinite(number) && Math.abs(number) < 1e15
+                        ? Long.toString((long) number) : Double.toString(number);
+            }
+            case Boolean:
+                return Boolean.toString(variables.getBoolean(name));
+            default:
+                throw new IllegalArgumentException("variable " + name + " is not a string or a number");
+        }
+    }
+}
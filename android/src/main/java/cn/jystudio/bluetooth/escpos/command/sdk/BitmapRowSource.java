@@ -0,0 +1,31 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import android.graphics.Bitmap;
+import cn.jystudio.bluetooth.raster.RowSource;
+
+/**
+ * Feeds a {@link Bitmap} to the raster core one row at a time, without copying the whole image.
+ */
+public class BitmapRowSource implements RowSource {
+    private final Bitmap bitmap;
+
+    public BitmapRowSource(Bitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    @Override
+    public int getWidth() {
+        return bitmap.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return bitmap.getHeight();
+    }
+
+    @Override
+    public void readRow(int y, int[] argb) {
+        int width = bitmap.getWidth();
+        bitmap.getPixels(argb, 0, width, 0, y, width, 1);
+    }
+}
@@ -1,5 +1,10 @@
 package cn.jystudio.bluetooth.escpos.command.sdk;
 
+/**
+ * ESC/POS 指令模板
+ * 数组由所有调用方共享：final 只保证字段不被重新赋值，数组内容仍然可以被改写，
+ * 需要带参数时先复制再修改，或直接用 {@link EscPosWriter} 写入指令
+ */
 public class Command {
 
 	private static final byte ESC = 0x1B;
@@ -16,139 +21,190 @@ public class Command {
 	public static final byte NUL = (byte) 0x00;
 	
 	//打印机初始化
-	public static byte[] ESC_Init = new byte[] {ESC, '@' };
+	public static final byte[] ESC_Init = new byte[] {ESC, '@' };
 	
 	/**
 	 * 打印命令
 	 */
 	//打印并换行
-	public static byte[] LF = new byte[] {NL};
+	public static final byte[] LF = new byte[] {NL};
 	
 	//打印并走纸
-	public static byte[] ESC_J = new byte[] {ESC, 'J', 0x00 };
-	public static byte[] ESC_d = new byte[] {ESC, 'd', 0x00 };
+	public static final byte[] ESC_J = new byte[] {ESC, 'J', 0x00 };
+	public static final byte[] ESC_d = new byte[] {ESC, 'd', 0x00 };
 	
 	//打印自检页
-	public static byte[] US_vt_eot = new byte[] {US, DC1, 0x04 };
+	public static final byte[] US_vt_eot = new byte[] {US, DC1, 0x04 };
 	
 	 //蜂鸣指令
-    public static byte[] ESC_B_m_n = new byte[] {ESC, 'B', 0x00, 0x00 };
+    public static final byte[] ESC_B_m_n = new byte[] {ESC, 'B', 0x00, 0x00 };
 	
     //切刀指令
-    public static byte[] GS_V_n = new byte[] {GS, 'V', 0x00 };
-    public static byte[] GS_V_m_n = new byte[] {GS, 'V', 'B', 0x00 };
-    public static byte[] GS_i = new byte[] {ESC, 'i' };
-    public static byte[] GS_m = new byte[] {ESC, 'm' };
+    public static final byte[] GS_V_n = new byte[] {GS, 'V', 0x00 };
+    public static final byte[] GS_V_m_n = new byte[] {GS, 'V', 'B', 0x00 };
+    public static final byte[] GS_i = new byte[] {ESC, 'i' };
+    public static final byte[] GS_m = new byte[] {ESC, 'm' };
 	
 	/**
 	 * 字符设置命令
 	 */
 	//设置字符右间距
-	public static byte[] ESC_SP = new byte[] {ESC, SP, 0x00 };
+	public static final byte[] ESC_SP = new byte[] {ESC, SP, 0x00 };
 	
 	//设置字符打印字体格式
-	public static byte[] ESC_ExclamationMark = new byte[] {ESC, '!', 0x00 };
+	public static final byte[] ESC_ExclamationMark = new byte[] {ESC, '!', 0x00 };
 	
 	//设置字体倍高倍宽
-	public static byte[] GS_ExclamationMark = new byte[] {GS, '!', 0x00 };
+	public static final byte[] GS_ExclamationMark = new byte[] {GS, '!', 0x00 };
 	
 	//设置反显打印
-	public static byte[] GS_B = new byte[] {GS, 'B', 0x00 };
+	public static final byte[] GS_B = new byte[] {GS, 'B', 0x00 };
 	
 	//取消/选择90度旋转打印
-	public static byte[] ESC_V = new byte[] {ESC, 'V', 0x00 };
+	public static final byte[] ESC_V = new byte[] {ESC, 'V', 0x00 };
 	
 	//选择字体字型(主要是ASCII码)
-	public static byte[] ESC_M = new byte[] {ESC, 'M', 0x00 };
+	public static final byte[] ESC_M = new byte[] {ESC, 'M', 0x00 };
 	
 	//选择/取消加粗指令
-	public static byte[] ESC_G = new byte[] {ESC, 'G', 0x00 };
-	public static byte[] ESC_E = new byte[] {ESC, 'E', 0x00 };
+	public static final byte[] ESC_G = new byte[] {ESC, 'G', 0x00 };
+	public static final byte[] ESC_E = new byte[] {ESC, 'E', 0x00 };
 	
 	//选择/取消倒置打印模式
-	public static byte[] ESC_LeftBrace = new byte[] {ESC, '{', 0x00 };
+	public static final byte[] ESC_LeftBrace = new byte[] {ESC, '{', 0x00 };
 	
 	//设置下划线点高度(字符)
-	public static byte[] ESC_Minus = new byte[] {ESC, 45, 0x00 };
+	public static final byte[] ESC_Minus = new byte[] {ESC, 45, 0x00 };
 	
 	//字符模式
-	public static byte[] FS_dot = new byte[] {FS, 46 };
+	public static final byte[] FS_dot = new byte[] {FS, 46 };
 	
 	//汉字模式
-	public static byte[] FS_and = new byte[] {FS, '&' };
+	public static final byte[] FS_and = new byte[] {FS, '&' };
 	
 	//设置汉字打印模式
-	public static byte[] FS_ExclamationMark = new byte[] {FS, '!', 0x00 };
+	public static final byte[] FS_ExclamationMark = new byte[] {FS, '!', 0x00 };
 	
 	//设置下划线点高度(汉字)
-	public static byte[] FS_Minus = new byte[] {FS, 45, 0x00 };
+	public static final byte[] FS_Minus = new byte[] {FS, 45, 0x00 };
 	
 	//设置汉字左右间距
-	public static byte[] FS_S = new byte[] {FS, 'S', 0x00, 0x00 };
+	public static final byte[] FS_S = new byte[] {FS, 'S', 0x00, 0x00 };
 	
 	//选择字符代码页
-	public static byte[] ESC_t = new byte[] {ESC, 't', 0x00 };
+	public static final byte[] ESC_t = new byte[] {ESC, 't', 0x00 };
 	
 	/**
 	 * 格式设置指令
 	 */
 	//设置默认行间距
-	public static byte[] ESC_Two = new byte[] {ESC, 50}; 
+	public static final byte[] ESC_Two = new byte[] {ESC, 50}; 
 	
 	//设置行间距
-	public static byte[] ESC_Three = new byte[] {ESC, 51, 0x00 };
+	public static final byte[] ESC_Three = new byte[] {ESC, 51, 0x00 };
 	
 	//设置对齐模式
-	public static byte[] ESC_Align = new byte[] {ESC, 'a', 0x00 };
+	public static final byte[] ESC_Align = new byte[] {ESC, 'a', 0x00 };
 	
 	//设置左边距
-	public static byte[] GS_LeftSp = new byte[] {GS, 'L', 0x00 , 0x00 };
+	public static final byte[] GS_LeftSp = new byte[] {GS, 'L', 0x00 , 0x00 };
 	
 	//设置绝对打印位置
 	//将当前位置设置到距离行首（nL + nH x 256）处。
 	//如果设置位置在指定打印区域外，该命令被忽略
-	public static byte[] ESC_Absolute  = new byte[] {ESC, '$', 0x00, 0x00 };
+	public static final byte[] ESC_Absolute  = new byte[] {ESC, '$', 0x00, 0x00 };
 	
 	//设置相对打印位置
-	public static byte[] ESC_Relative = new byte[] {ESC, 92, 0x00, 0x00 };
+	public static final byte[] ESC_Relative = new byte[] {ESC, 92, 0x00, 0x00 };
 	
 	//设置打印区域宽度
-	public static byte[] GS_W = new byte[] {GS, 'W', 0x00, 0x00 };
+	public static final byte[] GS_W = new byte[] {GS, 'W', 0x00, 0x00 };
 
 	/**
 	 * 状态指令
 	 */
 	//实时状态传送指令
-	public static byte[] DLE_eot = new byte[] {DLE, 0x04, 0x00 };
+	public static final byte[] DLE_eot = new byte[] {DLE, 0x04, 0x00 };
 	
 	//实时弹钱箱指令
-	public static byte[] DLE_DC4 = new byte[] {DLE, DC4, 0x00, 0x00, 0x00 };
+	public static final byte[] DLE_DC4 = new byte[] {DLE, DC4, 0x00, 0x00, 0x00 };
 	
 	//标准弹钱箱指令
-	public static byte[] ESC_p = new byte[] {ESC, 'p', 0x00, 0x00, 0x00 };
+	public static final byte[] ESC_p = new byte[] {ESC, 'p', 0x00, 0x00, 0x00 };
 	
 	/**
 	 * 条码设置指令
 	 */
 	//选择HRI打印方式
-	public static byte[] GS_H = new byte[] {GS, 'H', 0x00 };
+	public static final byte[] GS_H = new byte[] {GS, 'H', 0x00 };
 	
 	//设置条码高度
-	public static byte[] GS_h = new byte[] {GS, 'h', (byte) 0xa2 };
+	public static final byte[] GS_h = new byte[] {GS, 'h', (byte) 0xa2 };
 	
 	//设置条码宽度
-	public static byte[] GS_w = new byte[] {GS, 'w', 0x00 };
+	public static final byte[] GS_w = new byte[] {GS, 'w', 0x00 };
 	
 	//设置HRI字符字体字型
-	public static byte[] GS_f = new byte[] {GS, 'f', 0x00 };
+	public static final byte[] GS_f = new byte[] {GS, 'f', 0x00 };
 	
 	//条码左偏移指令
-	public static byte[] GS_x = new byte[] {GS, 'x', 0x00 };
+	public static final byte[] GS_x = new byte[] {GS, 'x', 0x00 };
 	
 	//打印条码指令
-	public static byte[] GS_k = new byte[] {GS, 'k', 'A', FF };
+	public static final byte[] GS_k = new byte[] {GS, 'k', 'A', FF };
+
+	/**
+	 * NV 位图指令
+	 */
+	//定义 NV 位图
+	public static final byte[] FS_q = new byte[] {FS, 'q', 0x01 };
+	
+	//打印 NV 位图
+	public static final byte[] FS_p = new byte[] {FS, 'p', 0x01, 0x00 };
+	
+	//打印 NV 图形 (GS ( L fn=69)
+	public static final byte[] GS_L_print = new byte[] {GS, '(', 'L', 0x06, 0x00, 0x30, 0x45, 0x20, 0x20, 0x01, 0x01 };
+	
+	//删除 NV 图形 (GS ( L fn=66)
+	public static final byte[] GS_L_delete = new byte[] {GS, '(', 'L', 0x04, 0x00, 0x30, 0x42, 0x20, 0x20 };
+
+	/**
+	 * 下传位图指令
+	 */
+	//定义下传位图
+	public static final byte[] GS_asterisk = new byte[] {GS, '*', 0x01, 0x01 };
+	
+	//打印下传位图
+	public static final byte[] GS_slash = new byte[] {GS, '/', 0x00 };
+
+	/**
+	 * 位图指令
+	 */
+	//24 点双密度位图
+	public static final byte[] ESC_star = new byte[] {ESC, '*', 33, 0x00, 0x00 };
+	
+	//返回纸传感器状态，数据处理到此处时才应答
+	public static final byte[] GS_r = new byte[] {GS, 'r', 0x01 };
 
 	//二维码相关指令		
-    public static byte[] GS_k_m_v_r_nL_nH = new byte[] { ESC, 'Z', 0x03, 0x03, 0x08, 0x00, 0x00 };
+    public static final byte[] GS_k_m_v_r_nL_nH = new byte[] { ESC, 'Z', 0x03, 0x03, 0x08, 0x00, 0x00 };
+
+	/**
+	 * 打印机内置二维码指令 (GS ( k, cn=49)
+	 */
+	//选择模型 2
+	public static final byte[] GS_k_qr_model = new byte[] {GS, '(', 'k', 0x04, 0x00, 0x31, 0x41, 0x32, 0x00 };
+	
+	//模块大小 (fn=67)
+	public static final byte[] GS_k_qr_size = new byte[] {GS, '(', 'k', 0x03, 0x00, 0x31, 0x43, 0x03 };
+	
+	//纠错级别 (fn=69) 48-L 49-M 50-Q 51-H
+	public static final byte[] GS_k_qr_level = new byte[] {GS, '(', 'k', 0x03, 0x00, 0x31, 0x45, 0x30 };
+	
+	//存入数据 (fn=80)，pL pH 为数据长度加 3
+	public static final byte[] GS_k_qr_store = new byte[] {GS, '(', 'k', 0x03, 0x00, 0x31, 0x50, 0x30 };
+	
+	//打印已存入的二维码 (fn=81)
+	public static final byte[] GS_k_qr_print = new byte[] {GS, '(', 'k', 0x03, 0x00, 0x31, 0x51, 0x30 };
 	
 }
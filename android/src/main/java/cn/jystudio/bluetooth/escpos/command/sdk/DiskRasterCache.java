@@ -0,0 +1,252 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * On-disk second level of {@link RasterCache}, so encoded images survive an app restart.
+ * <p>
+ * One file per entry, named after the cache key, so the directory listing is the index.
+ * Files are read whole into an array, outside the lock, and written on a background thread.
+ * The least recently used files are deleted once the directory grows past its byte budget,
+ * and everything is dropped when the profile signature changes: every encoding parameter is
+ * part of the file name, the signature stands for what is not, such as the encoder version.
+ */
+public class DiskRasterCache {
+    public static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+    private static final String TAG = "DiskRasterCache";
+    private static final String SUFFIX = ".bin";
+    private static final String PROFILE_FILE = "profile";
+
+    private final File dir;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "DiskRasterCache");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+    // file name -> length, loaded from the directory on first use
+    private Map<String, Long> index;
+    private long maxBytes;
+    private long size = 0;
+    // bumped by clear() so writes queued before it are dropped
+    private int generation = 0;
+
+    public DiskRasterCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Drop every entry if {@code signature} differs from the one the files were written under.
+     */
+    public synchronized void setProfile(String signature) {
+        loadIndex();
+        File file = new File(dir, PROFILE_FILE);
+        if (signature.equals(readProfile(file))) {
+            return;
+        }
+        clear();
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(signature.getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "cannot write the profile signature", e);
+        }
+    }
+
+    public byte[] get(RasterCache.Key key) {
+        String name = key.fileName() + SUFFIX;
+        synchronized (this) {
+            loadIndex();
+            if (!index.containsKey(name)) {
+                return null;
+            }
+        }
+        File file = new File(dir, name);
+        try {
+            byte[] data = readFully(file);
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (IOException e) {
+            synchronized (this) {
+                remove(name);
+            }
+            return null;
+        }
+    }
+
+    public synchronized void put(final RasterCache.Key key, final byte[] data) {
+        if (data.length > maxBytes) {
+            return;
+        }
+        final int queuedIn = generation;
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                write(key.fileName() + SUFFIX, data, queuedIn);
+            }
+        });
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        loadIndex();
+        trim();
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getSize() {
+        loadIndex();
+        return size;
+    }
+
+    public synchronized void clear() {
+        loadIndex();
+        generation++;
+        for (String name : new ArrayList<String>(index.keySet())) {
+            remove(name);
+        }
+    }
+
+    /**
+     * Runs on the writer thread. The file is written and renamed outside the lock, so a
+     * {@link #get} waits only for the index update, not for the flash write.
+     */
+    private void write(String name, byte[] data, int queuedIn) {
+        synchronized (this) {
+            if (queuedIn != generation) {
+                return;
+            }
+            // the first listing deletes leftover temp files, before this one is written
+            loadIndex();
+        }
+        File tmp = new File(dir, name + ".tmp");
+        File file = new File(dir, name);
+        try {
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                out.write(data);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return;
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        synchronized (this) {
+            if (queuedIn != generation) {
+                // cleared while writing, the file is not indexed for clear() to delete
+                file.delete();
+                return;
+            }
+            Long old = index.put(name, (long) data.length);
+            size += data.length - (old == null ? 0 : old);
+            trim();
+        }
+    }
+
+    private void remove(String name) {
+        Long length = index.remove(name);
+        if (length != null) {
+            size -= length;
+        }
+        new File(dir, name).delete();
+    }
+
+    private void trim() {
+        if (size <= maxBytes) {
+            return;
+        }
+        List<File> files = new ArrayList<File>();
+        for (String name : index.keySet()) {
+            files.add(new File(dir, name));
+        }
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long d = a.lastModified() - b.lastModified();
+                return d < 0 ? -1 : d > 0 ? 1 : 0;
+            }
+        });
+        for (int i = 0; i < files.size() && size > maxBytes; ++i) {
+            remove(files.get(i).getName());
+        }
+    }
+
+    private void loadIndex() {
+        if (index != null) {
+            return;
+        }
+        index = new HashMap<String, Long>();
+        dir.mkdirs();
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            if (f.getName().endsWith(SUFFIX)) {
+                index.put(f.getName(), f.length());
+                size += f.length();
+            } else if (f.getName().endsWith(".tmp")) {
+                f.delete();
+            }
+        }
+    }
+
+    private static String readProfile(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return new String(readFully(file), "UTF-8");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            byte[] b = new byte[(int) file.length()];
+            int n = 0;
+            while (n < b.length) {
+                int r = in.read(b, n, b.length - n);
+                if (r < 0) {
+                    throw new IOException(file + " shrank while reading");
+                }
+                n += r;
+            }
+            return b;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import java.nio.LongBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cells a code point takes on the printer, after the East Asian Width property of Unicode 14.
+ * <p>
+ * Wide (W) and full-width (F) characters take two cells: CJK ideographs, kana, Hangul, full-width
+ * forms, emoji. Ambiguous (A) ones, Greek, Cyrillic, box drawing and most punctuation of Chinese
+ * text, print from the double-byte font when the code page is East Asian and take two cells there.
+ * Everything else takes one.
+ * <p>
+ * The ranges are turned into a two-level bitmap once: 256 code point pages, each pointing to one of
+ * the few distinct pages of bits, so a lookup is two array reads.
+ */
+public class DisplayWidth {
+    // first and last code point of each W or F range, unassigned code points joined to their neighbours
+    private static final int[] WIDE = {
+            0x1100, 0x115F, 0x231A, 0x231B, 0x2329, 0x232A, 0x23E9, 0x23EC, 0x23F0, 0x23F0, 0x23F3, 0x23F3,
+            0x25FD, 0x25FE, 0x2614, 0x2615, 0x2648, 0x2653, 0x267F, 0x267F, 0x2693, 0x2693, 0x26A1, 0x26A1,
+            0x26AA, 0x26AB, 0x26BD, 0x26BE, 0x26C4, 0x26C5, 0x26CE, 0x26CE, 0x26D4, 0x26D4, 0x26EA, 0x26EA,
+            0x26F2, 0x26F3, 0x26F5, 0x26F5, 0x26FA, 0x26FA, 0x26FD, 0x26FD, 0x2705, 0x2705, 0x270A, 0x270B,
+            0x2728, 0x2728, 0x274C, 0x274C, 0x274E, 0x274E, 0x2753, 0x2755, 0x2757, 0x2757, 0x2795, 0x2797,
+            0x27B0, 0x27B0, 0x27BF, 0x27BF, 0x2B1B, 0x2B1C, 0x2B50, 0x2B50, 0x2B55, 0x2B55, 0x2E80, 0x303E,
+            0x3041, 0x3247, 0x3250, 0x4DBF, 0x4E00, 0xA4C6, 0xA960, 0xA97C, 0xAC00, 0xD7A3, 0xF900, 0xFAFF,
+            0xFE10, 0xFE19, 0xFE30, 0xFE6B, 0xFF01, 0xFF60, 0xFFE0, 0xFFE6, 0x16FE0, 0x1B2FB,
+            0x1F004, 0x1F004, 0x1F0CF, 0x1F0CF, 0x1F18E, 0x1F18E, 0x1F191, 0x1F19A, 0x1F200, 0x1F320,
+            0x1F32D, 0x1F335, 0x1F337, 0x1F37C, 0x1F37E, 0x1F393, 0x1F3A0, 0x1F3CA, 0x1F3CF, 0x1F3D3,
+            0x1F3E0, 0x1F3F0, 0x1F3F4, 0x1F3F4, 0x1F3F8, 0x1F43E, 0x1F440, 0x1F440, 0x1F442, 0x1F4FC,
+            0x1F4FF, 0x1F53D, 0x1F54B, 0x1F54E, 0x1F550, 0x1F567, 0x1F57A, 0x1F57A, 0x1F595, 0x1F596,
+            0x1F5A4, 0x1F5A4, 0x1F5FB, 0x1F64F, 0x1F680, 0x1F6C5, 0x1F6CC, 0x1F6CC, 0x1F6D0, 0x1F6D2,
+            0x1F6D5, 0x1F6DF, 0x1F6EB, 0x1F6EC, 0x1F6F4, 0x1F6FC, 0x1F7E0, 0x1F7F0, 0x1F90C, 0x1F93A,
+            0x1F93C, 0x1F945, 0x1F947, 0x1F9FF, 0x1FA70, 0x1FAF6, 0x20000, 0x3FFFD
+    };
+
+    // the same for A
+    private static final int[] AMBIGUOUS = {
+            0x00A1, 0x00A1, 0x00A4, 0x00A4, 0x00A7, 0x00A8, 0x00AA, 0x00AA, 0x00AD, 0x00AE, 0x00B0, 0x00B4,
+            0x00B6, 0x00BA, 0x00BC, 0x00BF, 0x00C6, 0x00C6, 0x00D0, 0x00D0, 0x00D7, 0x00D8, 0x00DE, 0x00E1,
+            0x00E6, 0x00E6, 0x00E8, 0x00EA, 0x00EC, 0x00ED, 0x00F0, 0x00F0, 0x00F2, 0x00F3, 0x00F7, 0x00FA,
+            0x00FC, 0x00FC, 0x00FE, 0x00FE, 0x0101, 0x0101, 0x0111, 0x0111, 0x0113, 0x0113, 0x011B, 0x011B,
+            0x0126, 0x0127, 0x012B, 0x012B, 0x0131, 0x0133, 0x0138, 0x0138, 0x013F, 0x0142, 0x0144, 0x0144,
+            0x0148, 0x014B, 0x014D, 0x014D, 0x0152, 0x0153, 0x0166, 0x0167, 0x016B, 0x016B, 0x01CE, 0x01CE,
+            0x01D0, 0x01D0, 0x01D2, 0x01D2, 0x01D4, 0x01D4, 0x01D6, 0x01D6, 0x01D8, 0x01D8, 0x01DA, 0x01DA,
+            0x01DC, 0x01DC, 0x0251, 0x0251, 0x0261, 0x0261, 0x02C4, 0x02C4, 0x02C7, 0x02C7, 0x02C9, 0x02CB,
+            0x02CD, 0x02CD, 0x02D0, 0x02D0, 0x02D8, 0x02DB, 0x02DD, 0x02DD, 0x02DF, 0x02DF, 0x0300, 0x036F,
+            0x0391, 0x03A9, 0x03B1, 0x03C1, 0x03C3, 0x03C9, 0x0401, 0x0401, 0x0410, 0x044F, 0x0451, 0x0451,
+            0x2010, 0x2010, 0x2013, 0x2016, 0x2018, 0x2019, 0x201C, 0x201D, 0x2020, 0x2022, 0x2024, 0x2027,
+            0x2030, 0x2030, 0x2032, 0x2033, 0x2035, 0x2035, 0x203B, 0x203B, 0x203E, 0x203E, 0x2074, 0x2074,
+            0x207F, 0x207F, 0x2081, 0x2084, 0x20AC, 0x20AC, 0x2103, 0x2103, 0x2105, 0x2105, 0x2109, 0x2109,
+            0x2113, 0x2113, 0x2116, 0x2116, 0x2121, 0x2122, 0x2126, 0x2126, 0x212B, 0x212B, 0x2153, 0x2154,
+            0x215B, 0x215E, 0x2160, 0x216B, 0x2170, 0x2179, 0x2189, 0x2189, 0x2190, 0x2199, 0x21B8, 0x21B9,
+            0x21D2, 0x21D2, 0x21D4, 0x21D4, 0x21E7, 0x21E7, 0x2200, 0x2200, 0x2202, 0x2203, 0x2207, 0x2208,
+            0x220B, 0x220B, 0x220F, 0x220F, 0x2211, 0x2211, 0x2215, 0x2215, 0x221A, 0x221A, 0x221D, 0x2220,
+            0x2223, 0x2223, 0x2225, 0x2225, 0x2227, 0x222C, 0x222E, 0x222E, 0x2234, 0x2237, 0x223C, 0x223D,
+            0x2248, 0x2248, 0x224C, 0x224C, 0x2252, 0x2252, 0x2260, 0x2261, 0x2264, 0x2267, 0x226A, 0x226B,
+            0x226E, 0x226F, 0x2282, 0x2283, 0x2286, 0x2287, 0x2295, 0x2295, 0x2299, 0x2299, 0x22A5, 0x22A5,
+            0x22BF, 0x22BF, 0x2312, 0x2312, 0x2460, 0x24E9, 0x24EB, 0x254B, 0x2550, 0x2573, 0x2580, 0x258F,
+            0x2592, 0x2595, 0x25A0, 0x25A1, 0x25A3, 0x25A9, 0x25B2, 0x25B3, 0x25B6, 0x25B7, 0x25BC, 0x25BD,
+            0x25C0, 0x25C1, 0x25C6, 0x25C8, 0x25CB, 0x25CB, 0x25CE, 0x25D1, 0x25E2, 0x25E5, 0x25EF, 0x25EF,
+            0x2605, 0x2606, 0x2609, 0x2609, 0x260E, 0x260F, 0x261C, 0x261C, 0x261E, 0x261E, 0x2640, 0x2640,
+            0x2642, 0x2642, 0x2660, 0x2661, 0x2663, 0x2665, 0x2667, 0x266A, 0x266C, 0x266D, 0x266F, 0x266F,
+            0x269E, 0x269F, 0x26BF, 0x26BF, 0x26C6, 0x26CD, 0x26CF, 0x26D3, 0x26D5, 0x26E1, 0x26E3, 0x26E3,
+            0x26E8, 0x26E9, 0x26EB, 0x26F1, 0x26F4, 0x26F4, 0x26F6, 0x26F9, 0x26FB, 0x26FC, 0x26FE, 0x26FF,
+            0x273D, 0x273D, 0x2776, 0x277F, 0x2B56, 0x2B59, 0x3248, 0x324F, 0xE000, 0xF8FF, 0xFE00, 0xFE0F,
+            0xFFFD, 0xFFFD, 0x1F100, 0x1F10A, 0x1F110, 0x1F12D, 0x1F130, 0x1F169, 0x1F170, 0x1F18D,
+            0x1F18F, 0x1F190, 0x1F19B, 0x1F1AC, 0xE0100, 0x10FFFD
+    };
+
+    // canonical names of the charsets that print ambiguous characters double width
+    private static final Set<String> EAST_ASIAN = new HashSet<String>(Arrays.asList(
+            "gbk", "gb2312", "gb18030", "x-mswin-936", "big5", "big5-hkscs", "x-windows-950", "x-ms950-hkscs",
+            "x-ms950-hkscs-xp", "x-euc-tw", "shift_jis", "windows-31j", "euc-jp", "x-eucjp-open", "iso-2022-jp",
+            "iso-2022-jp-2", "x-windows-iso2022jp", "euc-kr", "x-windows-949", "x-johab", "iso-2022-kr",
+            "iso-2022-cn", "x-iso-2022-cn-cns", "x-iso-2022-cn-gb"));
+
+    private static final int PAGE_SIZE = 256;
+    // longs per page: the wide bits, then the ambiguous bits
+    private static final int PAGE_LONGS = 2 * PAGE_SIZE / 64;
+
+    // page of bits of each 256 code points
+    private static final byte[] INDEX = new byte[(Character.MAX_CODE_POINT + 1) / PAGE_SIZE];
+    private static final long[] PAGES;
+
+    static {
+        Map<LongBuffer, Integer> distinct = new HashMap<LongBuffer, Integer>();
+        List<long[]> pages = new ArrayList<long[]>();
+        int wide = 0;
+        int ambiguous = 0;
+        for (int page = 0; page < INDEX.length; ++page) {
+            long[] bits = new long[PAGE_LONGS];
+            wide = fill(bits, 0, WIDE, wide, page);
+            ambiguous = fill(bits, PAGE_LONGS / 2, AMBIGUOUS, ambiguous, page);
+            Integer index = distinct.get(LongBuffer.wrap(bits));
+            if (index == null) {
+                index = pages.size();
+                pages.add(bits);
+                distinct.put(LongBuffer.wrap(bits), index);
+            }
+            INDEX[page] = (byte) (int) index;
+        }
+        PAGES = new long[pages.size() * PAGE_LONGS];
+        for (int i = 0; i < pages.size(); ++i) {
+            System.arraycopy(pages.get(i), 0, PAGES, i * PAGE_LONGS, PAGE_LONGS);
+        }
+    }
+
+    /**
+     * Set the bits of the ranges from {@code first} on that fall in the page.
+     *
+     * @return the first range that reaches past the page, where the next page starts looking
+     */
+    private static int fill(long[] bits, int off, int[] ranges, int first, int page) {
+        int lo = page * PAGE_SIZE;
+        int hi = lo + PAGE_SIZE - 1;
+        int i = first;
+        for (; i < ranges.length && ranges[i] <= hi; i += 2) {
+            for (int c = Math.max(lo, ranges[i]), end = Math.min(hi, ranges[i + 1]); c <= end; ++c) {
+                bits[off + (c - lo) / 64] |= 1L << c;
+            }
+            if (ranges[i + 1] > hi) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * @param ambiguousWide whether ambiguous characters take two cells, see {@link #isEastAsian}
+     * @return 2 or 1; lone surrogates and code points out of range take one
+     */
+    public static int of(int codePoint, boolean ambiguousWide) {
+        if (codePoint < 0xA1 || codePoint > Character.MAX_CODE_POINT) {
+            return 1;
+        }
+        int base = (INDEX[codePoint >>> 8] & 0xff) * PAGE_LONGS + (codePoint & 0xff) / 64;
+        long bit = 1L << codePoint;
+        if ((PAGES[base] & bit) != 0 || ambiguousWide && (PAGES[base + PAGE_LONGS / 2] & bit) != 0) {
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * Whether the encoding is an East Asian multi-byte one, printed with ambiguous characters double width.
+     */
+    public static boolean isEastAsian(String encoding) {
+        try {
+            return EAST_ASIAN.contains(Charset.forName(encoding).name().toLowerCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+/**
+ * Growable buffer a whole print job is written into, command by command, to be sent as one array.
+ * <p>
+ * Opcodes are written directly instead of copying the templates in {@link Command}, which are shared
+ * mutable arrays. Arguments are written as given, the {@link PrinterCommand} builders check ranges.
+ * <p>
+ * Text modes (code page, size, font, bold, underline, alignment, line spacing) are written only when
+ * they differ from the {@link PrinterStyle} the writer keeps, so a job can set them before every line.
+ * Give the writers of one connection the same style to carry it from job to job.
+ */
+public class EscPosWriter {
+    private static final byte ESC = 0x1B;
+    private static final byte FS = 0x1C;
+    private static final byte GS = 0x1D;
+    private static final byte US = 0x1F;
+    private static final byte LF = 0x0A;
+
+    private byte[] buf;
+    private int count;
+    private final PrinterStyle style;
+
+    public EscPosWriter() {
+        this(256, new PrinterStyle());
+    }
+
+    public EscPosWriter(int capacity) {
+        this(capacity, new PrinterStyle());
+    }
+
+    public EscPosWriter(PrinterStyle style) {
+        this(256, style);
+    }
+
+    /**
+     * @param style modes the printer is in when this job starts, updated as the job is written
+     */
+    public EscPosWriter(int capacity, PrinterStyle style) {
+        this.buf = new byte[capacity];
+        this.style = style;
+    }
+
+    public PrinterStyle style() {
+        return style;
+    }
+
+    /**
+     * ESC @, clears the print buffer and every mode set before.
+     */
+    public EscPosWriter init() {
+        style.reset();
+        return put(ESC, '@');
+    }
+
+    /**
+     * LF, prints the line and feeds by the line spacing.
+     */
+    public EscPosWriter lf() {
+        ensure(1);
+        buf[count++] = LF;
+        return this;
+    }
+
+    /**
+     * ESC J n, prints and feeds n dots.
+     */
+    public EscPosWriter feed(int dots) {
+        return put(ESC, 'J', dots);
+    }
+
+    /**
+     * ESC a n, 0 left, 1 center, 2 right.
+     */
+    public EscPosWriter align(int align) {
+        if (style.align == (align & 3)) {
+            return this;
+        }
+        style.align = align & 3;
+        return put(ESC, 'a', align);
+    }
+
+    /**
+     * ESC t n.
+     */
+    public EscPosWriter codePage(int page) {
+        if (style.codePage == page) {
+            return this;
+        }
+        style.codePage = page;
+        return put(ESC, 't', page);
+    }
+
+    /**
+     * GS ! n, the width in the high nibble and the height in the low one, both 0 for normal size.
+     */
+    public EscPosWriter charSize(int size) {
+        if (style.charSize == size) {
+            return this;
+        }
+        style.charSize = size;
+        return put(GS, '!', size);
+    }
+
+    /**
+     * ESC M n, 0 font A, 1 font B.
+     */
+    public EscPosWriter font(int font) {
+        if (style.font == (font & 1)) {
+            return this;
+        }
+        style.font = font & 1;
+        return put(ESC, 'M', font);
+    }
+
+    /**
+     * ESC E n and ESC G n, emphasized and double-strike together.
+     */
+    public EscPosWriter bold(int bold) {
+        if (style.bold == (bold & 1)) {
+            return this;
+        }
+        style.bold = bold & 1;
+        return put(ESC, 'E', bold).put(ESC, 'G', bold);
+    }
+
+    /**
+     * ESC - n and FS - n, for ASCII and for Chinese characters, 0 off, 1 thin, 2 thick.
+     */
+    public EscPosWriter underline(int line) {
+        if (style.underline == (line & 3)) {
+            return this;
+        }
+        style.underline = line & 3;
+        return put(ESC, '-', line).put(FS, '-', line);
+    }
+
+    /**
+     * ESC 3 n.
+     */
+    public EscPosWriter lineSpacing(int dots) {
+        if (style.lineSpacing == dots) {
+            return this;
+        }
+        style.lineSpacing = dots;
+        return put(ESC, '3', dots);
+    }
+
+    /**
+     * ESC 2.
+     */
+    public EscPosWriter defaultLineSpacing() {
+        if (style.lineSpacing == PrinterStyle.DEFAULT_LINE_SPACING) {
+            return this;
+        }
+        style.lineSpacing = PrinterStyle.DEFAULT_LINE_SPACING;
+        return put(ESC, '2');
+    }
+
+    /**
+     * GS L nL nH.
+     */
+    public EscPosWriter leftMargin(int dots) {
+        return put(GS, 'L', dots, dots >> 8);
+    }
+
+    /**
+     * ESC $ nL nH.
+     */
+    public EscPosWriter absolutePosition(int dots) {
+        return put(ESC, '$', dots, dots >> 8);
+    }
+
+    /**
+     * ESC \ nL nH.
+     */
+    public EscPosWriter relativePosition(int dots) {
+        return put(ESC, '\\', dots, dots >> 8);
+    }
+
+    /**
+     * GS W nL nH.
+     */
+    public EscPosWriter printWidth(int dots) {
+        return put(GS, 'W', dots, dots >> 8);
+    }
+
+    /**
+     * GS B n.
+     */
+    public EscPosWriter inverse(int inverse) {
+        return put(GS, 'B', inverse);
+    }
+
+    /**
+     * ESC V n.
+     */
+    public EscPosWriter rotate(int rotate) {
+        return put(ESC, 'V', rotate);
+    }
+
+    /**
+     * ESC { n.
+     */
+    public EscPosWriter upsideDown(int upsideDown) {
+        return put(ESC, '{', upsideDown);
+    }
+
+    /**
+     * GS V B n, feeds to the cutter and cuts.
+     */
+    public EscPosWriter cut(int feed) {
+        return put(GS, 'V', 'B', feed);
+    }
+
+    /**
+     * ESC i, partial cut.
+     */
+    public EscPosWriter cutOnePoint() {
+        return put(ESC, 'i');
+    }
+
+    /**
+     * ESC B m t.
+     */
+    public EscPosWriter beep(int times, int duration) {
+        return put(ESC, 'B', times, duration);
+    }
+
+    /**
+     * ESC p m t1 t2.
+     */
+    public EscPosWriter cashDrawer(int pin, int onTime, int offTime) {
+        ensure(5);
+        buf[count++] = ESC;
+        buf[count++] = 'p';
+        buf[count++] = (byte) pin;
+        buf[count++] = (byte) onTime;
+        buf[count++] = (byte) offTime;
+        return this;
+    }
+
+    /**
+     * US DC1 EOT.
+     */
+    public EscPosWriter selfTest() {
+        return put(US, 0x11, 0x04);
+    }
+
+    /**
+     * FS q n, to be followed by the n images.
+     */
+    public EscPosWriter defineNvBitImages(int n) {
+        return put(FS, 'q', n);
+    }
+
+    /**
+     * FS p n m.
+     */
+    public EscPosWriter printNvBitImage(int n, int mode) {
+        return put(FS, 'p', n, mode);
+    }
+
+    /**
+     * GS / m.
+     */
+    public EscPosWriter printDownloadedBitImage(int mode) {
+        return put(GS, '/', mode);
+    }
+
+    /**
+     * GS ( L fn=69 or fn=66, printing or deleting the NV graphics stored under the key codes.
+     */
+    public EscPosWriter nvGraphics(int fn, int kc1, int kc2) {
+        boolean print = fn == 69;
+        ensure(11);
+        buf[count++] = GS;
+        buf[count++] = '(';
+        buf[count++] = 'L';
+        buf[count++] = (byte) (print ? 6 : 4);
+        buf[count++] = 0;
+        buf[count++] = 0x30;
+        buf[count++] = (byte) fn;
+        buf[count++] = (byte) kc1;
+        buf[count++] = (byte) kc2;
+        if (print) {
+            buf[count++] = 1;
+            buf[count++] = 1;
+        }
+        return this;
+    }
+
+    /**
+     * GS ( k model 2: select the model, module size and error correction level, store the data and print.
+     *
+     * @param level 0-L 1-M 2-Q 3-H
+     */
+    public EscPosWriter qrCode(byte[] data, int moduleSize, int level) {
+        ensure(41 + data.length);
+        qrFunction(4, 0x41).put(0x32, 0);
+        qrFunction(3, 0x43).put(moduleSize);
+        qrFunction(3, 0x45).put(0x30 + level);
+        qrFunction(data.length + 3, 0x50).put(0x30);
+        write(data, 0, data.length);
+        return qrFunction(3, 0x51).put(0x30);
+    }
+
+    private EscPosWriter qrFunction(int length, int fn) {
+        buf[count++] = GS;
+        buf[count++] = '(';
+        buf[count++] = 'k';
+        buf[count++] = (byte) length;
+        buf[count++] = (byte) (length >> 8);
+        buf[count++] = 0x31;
+        buf[count++] = (byte) fn;
+        return this;
+    }
+
+    /**
+     * The text in the given charset, see {@link TextEncoder}.
+     */
+    public EscPosWriter text(CharSequence text, String encoding) throws UnsupportedEncodingException {
+        ensure(TextEncoder.maxLength(text, encoding));
+        int length;
+        // encoded straight into the buffer, grown if the text overflows it after all
+        while ((length = TextEncoder.encode(text, encoding, buf, count)) < 0) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        count += length;
+        return this;
+    }
+
+    /**
+     * Commands already built, raster images and cached codes for example. They are not looked into,
+     * call {@code style().forget()} after any that may change a text mode.
+     */
+    public EscPosWriter write(byte[] data) {
+        return write(data, 0, data.length);
+    }
+
+    public EscPosWriter write(byte[] data, int off, int len) {
+        ensure(len);
+        System.arraycopy(data, off, buf, count, len);
+        count += len;
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Empty the buffer to write the next job, keeping its capacity.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * The job written so far, to send to the printer.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    /**
+     * Like {@link #toByteArray()}, but hands out the buffer itself when the writer was sized exactly,
+     * for the single command builders that drop the writer right after.
+     */
+    byte[] detach() {
+        return count == buf.length ? buf : toByteArray();
+    }
+
+    private EscPosWriter put(int b) {
+        buf[count++] = (byte) b;
+        return this;
+    }
+
+    private EscPosWriter put(int b0, int b1) {
+        ensure(2);
+        buf[count++] = (byte) b0;
+        buf[count++] = (byte) b1;
+        return this;
+    }
+
+    private EscPosWriter put(int b0, int b1, int b2) {
+        ensure(3);
+        buf[count++] = (byte) b0;
+        buf[count++] = (byte) b1;
+        buf[count++] = (byte) b2;
+        return this;
+    }
+
+    private EscPosWriter put(int b0, int b1, int b2, int b3) {
+        ensure(4);
+        buf[count++] = (byte) b0;
+        buf[count++] = (byte) b1;
+        buf[count++] = (byte) b2;
+        buf[count++] = (byte) b3;
+        return this;
+    }
+
+    private void ensure(int length) {
+        if (count + length > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + length));
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package cn.jystudio.bluetooth.escpos.command.sdk;
 
 import android.graphics.*;
+import android.os.Build;
+import cn.jystudio.bluetooth.raster.Dither;
+import cn.jystudio.bluetooth.raster.Luma;
+import cn.jystudio.bluetooth.raster.RasterCommands;
 
-import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 
+/**
+ * 位图解码与缩放，点阵转换和指令生成在 cn.jystudio.bluetooth.raster 中，不依赖 android.graphics
+ */
 public class PrintPicture {
-    private static int[] p0 = new int[]{0, 128};
-    private static int[] p1 = new int[]{0, 64};
-    private static int[] p2 = new int[]{0, 32};
-    private static int[] p3 = new int[]{0, 16};
-    private static int[] p4 = new int[]{0, 8};
-    private static int[] p5 = new int[]{0, 4};
-    private static int[] p6 = new int[]{0, 2};
-    private static int[][] Floyd16x16 = new int[][]{{0, 128, 32, 160, 8, 136, 40, 168, 2, 130, 34, 162, 10, 138, 42, 170}, {192, 64, 224, 96, 200, 72, 232, 104, 194, 66, 226, 98, 202, 74, 234, 106}, {48, 176, 16, 144, 56, 184, 24, 152, 50, 178, 18, 146, 58, 186, 26, 154}, {240, 112, 208, 80, 248, 120, 216, 88, 242, 114, 210, 82, 250, 122, 218, 90}, {12, 140, 44, 172, 4, 132, 36, 164, 14, 142, 46, 174, 6, 134, 38, 166}, {204, 76, 236, 108, 196, 68, 228, 100, 206, 78, 238, 110, 198, 70, 230, 102}, {60, 188, 28, 156, 52, 180, 20, 148, 62, 190, 30, 158, 54, 182, 22, 150}, {252, 124, 220, 92, 244, 116, 212, 84, 254, 126, 222, 94, 246, 118, 214, 86}, {3, 131, 35, 163, 11, 139, 43, 171, 1, 129, 33, 161, 9, 137, 41, 169}, {195, 67, 227, 99, 203, 75, 235, 107, 193, 65, 225, 97, 201, 73, 233, 105}, {51, 179, 19, 147, 59, 187, 27, 155, 49, 177, 17, 145, 57, 185, 25, 153}, {243, 115, 211, 83, 251, 123, 219, 91, 241, 113, 209, 81, 249, 121, 217, 89}, {15, 143, 47, 175, 7, 135, 39, 167, 13, 141, 45, 173, 5, 133, 37, 165}, {207, 79, 239, 111, 199, 71, 231, 103, 205, 77, 237, 109, 197, 69, 229, 101}, {63, 191, 31, 159, 55, 183, 23, 151, 61, 189, 29, 157, 53, 181, 21, 149}, {254, 127, 223, 95, 247, 119, 215, 87, 253, 125, 221, 93, 245, 117, 213, 85}};
+    // 二值化方式
+    public static final int DITHER_THRESHOLD = Dither.THRESHOLD;
+    public static final int DITHER_ORDERED = Dither.ORDERED;
+    public static final int DITHER_FLOYD_STEINBERG = Dither.FLOYD_STEINBERG;
+    public static final int DITHER_ATKINSON = Dither.ATKINSON;
+    public static final int DITHER_STUCKI = Dither.STUCKI;
+
+    // 大图分条并行处理，ForkJoinPool 需要 API 21，更低版本按同样的分条顺序执行
+    private static final boolean PARALLEL = Build.VERSION.SDK_INT >= 21;
 
 
     public static Bitmap resizeImage(Bitmap bitmap, int w, int h) {
@@ -26,6 +34,43 @@ public class PrintPicture {
         return resizedBitmap;
     }
 
+    /**
+     * 解码图片：先只读尺寸，再按 2 的幂降采样到不小于打印宽度后解码，
+     * 相机原图不必按原分辨率解码，之后的缩放只处理接近打印尺寸的位图
+     *
+     * @param data   图片文件数据
+     * @param nWidth 打印宽度(点)
+     * @return 无法解码时返回 null
+     */
+    public static Bitmap decodeSampled(byte[] data, int nWidth) {
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, opts);
+        if (opts.outWidth <= 0 || opts.outHeight <= 0) {
+            return null;
+        }
+        opts.inJustDecodeBounds = false;
+        opts.inSampleSize = sampleSize(opts.outWidth, nWidth);
+        return BitmapFactory.decodeByteArray(data, 0, data.length, opts);
+    }
+
+    /**
+     * 不低于目标宽度的最大 2 的幂采样率
+     */
+    public static int sampleSize(int srcWidth, int nWidth) {
+        int sample = 1;
+        while (nWidth > 0 && srcWidth / (sample * 2) >= nWidth) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    /**
+     * 补白边
+     *
+     * @deprecated 分配了更大的位图，左边距请用 {@link #toBWPix} 的 leftPadding 或 GS L
+     */
+    @Deprecated
     public static Bitmap pad(Bitmap Src, int padding_x, int padding_y) {
         Bitmap outputimage = Bitmap.createBitmap(Src.getWidth() + padding_x,Src.getHeight() + padding_y, Bitmap.Config.ARGB_8888);
         Canvas can = new Canvas(outputimage);
@@ -45,85 +90,145 @@ public class PrintPicture {
      * @return
      */
     public static byte[] POS_PrintBMP(Bitmap mBitmap, int nWidth, int nMode, int leftPadding) {
-        // 先转黑白，再调用函数缩放位图
-        int width = ((nWidth + 7) / 8) * 8;
-        int height = mBitmap.getHeight() * width / mBitmap.getWidth();
+        return POS_PrintBMP(mBitmap, nWidth, nMode, leftPadding, DITHER_THRESHOLD);
+    }
+
+    /**
+     * 打印位图函数
+     * 倍宽/倍高模式下按一半的横向/纵向分辨率生成点阵，由打印机放大，打印尺寸不变
+     *
+     * @param mBitmap
+     * @param nWidth      打印宽度(点)
+     * @param nMode       GS v 0 模式 0-正常 1-倍宽 2-倍高 3-倍宽倍高
+     * @param leftPadding
+     * @param dither      二值化方式, DITHER_*
+     * @return
+     */
+    public static byte[] POS_PrintBMP(Bitmap mBitmap, int nWidth, int nMode, int leftPadding, int dither) {
+        // 先缩放位图，再逐行转灰度（亮度）并二值化
+        int xScale = (nMode & 1) + 1;
+        int yScale = ((nMode >> 1) & 1) + 1;
+        int width = ((nWidth / xScale + 7) / 8) * 8;
+        int height = mBitmap.getHeight() * width * xScale / mBitmap.getWidth() / yScale;
         height = ((height + 7) / 8) * 8;
-        int left = leftPadding == 0 ? 0 : ((leftPadding+7) / 8) * 8;
+        int left = leftPadding == 0 ? 0 : ((leftPadding / xScale + 7) / 8) * 8;
 
         Bitmap rszBitmap = mBitmap;
-        if (mBitmap.getWidth() != width) {
+        if (mBitmap.getWidth() != width || xScale != yScale) {
             rszBitmap = Bitmap.createScaledBitmap(mBitmap, width, height, true);
         }
 
-        Bitmap grayBitmap = toGrayscale(rszBitmap);
-        if(left>0){
-            grayBitmap = pad(grayBitmap,left,0);
-        }
-
-        byte[] dithered = thresholdToBWPic(grayBitmap);
+        // left padding columns are left white, no padded Bitmap needed
+        byte[] dithered = toBWPix(rszBitmap, left, dither);
 
         byte[] data = eachLinePixToCmd(dithered, width+left, nMode);
 
         return data;
     }
 
+    /**
+     * 位图缩放并转黑白点阵，宽度按 8 点对齐，高度补白到 8 的倍数
+     *
+     * @param mBitmap 源位图
+     * @param nWidth  目标宽度(点)
+     * @param dither  二值化方式, DITHER_*
+     * @return 每像素一个字节，宽为 ((nWidth + 7) / 8) * 8
+     */
+    public static byte[] toScaledBWPix(Bitmap mBitmap, int nWidth, int dither) {
+        int width = ((nWidth + 7) / 8) * 8;
+        int height = mBitmap.getHeight() * width / mBitmap.getWidth();
+        height = ((height + 7) / 8) * 8;
+
+        Bitmap rszBitmap = mBitmap;
+        if (mBitmap.getWidth() != width) {
+            rszBitmap = Bitmap.createScaledBitmap(mBitmap, width, height, true);
+        }
+        height = ((rszBitmap.getHeight() + 7) / 8) * 8;
+        return Arrays.copyOf(toBWPix(rszBitmap, 0, dither), width * height);
+    }
+
+    /**
+     * 生成 FS q 定义 NV 位图所需的单幅数据 [xL xH yL yH d1...dk]
+     *
+     * @param mBitmap 源位图
+     * @param nWidth  打印宽度(点)
+     * @param dither  二值化方式, DITHER_*
+     * @return
+     */
+    public static byte[] POS_NvBitImage(Bitmap mBitmap, int nWidth, int dither) {
+        int width = ((nWidth + 7) / 8) * 8;
+        byte[] src = toScaledBWPix(mBitmap, nWidth, dither);
+        return pixToEscNvBitImageCmd(src, width, src.length / width);
+    }
+
     /**
      * 使用下传位图打印图片
-     * 先收完再打印
+     * 先收完再打印，非白色的点均打印为黑点，图片按原尺寸定义
      *
      * @param bmp
-     * @return
+     * @return GS * 定义指令，图片超出下传位图的容量时返回 null
      */
     public static byte[] Print_1D2A(Bitmap bmp) {
-
-			/*
-			 * 使用下传位图打印图片
-			 * 先收完再打印
-			 */
-        int width = bmp.getWidth();
-        int height = bmp.getHeight();
-        byte data[] = new byte[1024 * 10];
-        data[0] = 0x1D;
-        data[1] = 0x2A;
-        data[2] = (byte) ((width - 1) / 8 + 1);
-        data[3] = (byte) ((height - 1) / 8 + 1);
-        byte k = 0;
-        int position = 4;
-        int i;
-        int j;
-        byte temp = 0;
-        for (i = 0; i < width; i++) {
-            for (j = 0; j < height; j++) {
-                if (bmp.getPixel(i, j) != -1) {
-                    temp |= (0x80 >> k);
-                } // end if
-                k++;
-                if (k == 8) {
-                    data[position++] = temp;
-                    temp = 0;
-                    k = 0;
-                } // end if k
-            }// end for j
-            if (k % 8 != 0) {
-                data[position++] = temp;
-                temp = 0;
-                k = 0;
+        int width = ((bmp.getWidth() + 7) / 8) * 8;
+        int height = ((bmp.getHeight() + 7) / 8) * 8;
+        byte[] luma = toLuma(bmp, 0);
+        byte[] src = new byte[width * height];
+        for (int y = 0; y < bmp.getHeight(); ++y) {
+            for (int x = 0, off = y * bmp.getWidth(); x < bmp.getWidth(); ++x) {
+                src[y * width + x] = (byte) (luma[off + x] != (byte) 255 ? 1 : 0);
             }
+        }
+        return pixToDownloadedBitImageCmd(src, width, height);
+    }
 
+    /**
+     * 生成定义下传位图的 GS * 指令，之后可用 GS / 多次打印，直到 ESC @ 或断电
+     *
+     * @param mBitmap 源位图
+     * @param nWidth  打印宽度(点)
+     * @param dither  二值化方式, DITHER_*
+     * @return 图片超出下传位图的容量(高 384 点，共 1536*8 字节)时返回 null
+     */
+    public static byte[] POS_DownloadBitImage(Bitmap mBitmap, int nWidth, int dither) {
+        int width = ((nWidth + 7) / 8) * 8;
+        if (mBitmap.getHeight() * width / mBitmap.getWidth() > 48 * 8) {
+            return null;
         }
+        byte[] src = toScaledBWPix(mBitmap, nWidth, dither);
+        return pixToDownloadedBitImageCmd(src, width, src.length / width);
+    }
 
-        if (width % 8 != 0) {
-            i = height / 8;
-            if (height % 8 != 0) i++;
-            j = 8 - (width % 8);
-            for (k = 0; k < i * j; k++) {
-                data[position++] = 0;
-            }
+    private static byte[] pixToDownloadedBitImageCmd(byte[] src, int width, int height) {
+        int x = width / 8;
+        int y = height / 8;
+        if (x < 1 || x > 255 || y < 1 || y > 48 || x * y > 1536) {
+            return null;
         }
+        // GS * 与 FS q 的单幅数据同为按列排列，只是头部不同
+        byte[] data = pixToEscNvBitImageCmd(src, width, height);
+        data[0] = Command.GS_asterisk[0];
+        data[1] = Command.GS_asterisk[1];
+        data[2] = (byte) x;
+        data[3] = (byte) y;
         return data;
     }
 
+    /**
+     * 在亮度上计算内容(非空白点)的外接矩形，用于打印前裁掉四周空白
+     *
+     * @param mBitmap 源位图
+     * @return {left, top, right, bottom}，right 与 bottom 不含在内；整幅空白时返回 null
+     */
+    public static int[] contentBounds(Bitmap mBitmap) {
+        return Luma.contentBounds(new BitmapRowSource(mBitmap));
+    }
+
+    /**
+     * 转灰度位图
+     *
+     * @deprecated the RGB_565 result loses precision, use {@link #toLuma(Bitmap, int)} instead.
+     */
+    @Deprecated
     public static Bitmap toGrayscale(Bitmap bmpOriginal) {
         int width, height;
         height = bmpOriginal.getHeight();
@@ -140,142 +245,136 @@ public class PrintPicture {
         return bmpGrayscale;
     }
 
-    public static byte[] thresholdToBWPic(Bitmap mBitmap) {
-        int[] pixels = new int[mBitmap.getWidth() * mBitmap.getHeight()];
-        byte[] data = new byte[mBitmap.getWidth() * mBitmap.getHeight()];
-        mBitmap.getPixels(pixels, 0, mBitmap.getWidth(), 0, 0, mBitmap.getWidth(), mBitmap.getHeight());
-        format_K_threshold(pixels, mBitmap.getWidth(), mBitmap.getHeight(), data);
-        return data;
+    /**
+     * 将一行 ARGB 像素转为 8 位亮度 (BT.601, 16 位定点)，透明像素按白底合成
+     *
+     * @param argb    ARGB 像素
+     * @param argbOff 起始下标
+     * @param luma    输出亮度 (0 黑 ~ 255 白)
+     * @param lumaOff 输出起始下标
+     * @param count   像素个数
+     */
+    public static void argbToLuma(int[] argb, int argbOff, byte[] luma, int lumaOff, int count) {
+        Luma.argbToLuma(argb, argbOff, luma, lumaOff, count);
     }
 
-    private static void format_K_threshold(int[] orgpixels, int xsize, int ysize, byte[] despixels) {
-        int graytotal = 0;
-        boolean grayave = true;
-        int k = 0;
-
-        int i;
-        int j;
-        int gray;
-        for (i = 0; i < ysize; ++i) {
-            for (j = 0; j < xsize; ++j) {
-                gray = orgpixels[k] & 255;
-                graytotal += gray;
-                ++k;
-            }
-        }
-
-        int var10 = graytotal / ysize / xsize;
-        k = 0;
-
-        for (i = 0; i < ysize; ++i) {
-            for (j = 0; j < xsize; ++j) {
-                gray = orgpixels[k] & 255;
-                if (gray > var10) {
-                    despixels[k] = 0;
-                } else {
-                    despixels[k] = 1;
-                }
+    /**
+     * 逐行读取位图像素并转为亮度平面，不额外创建位图
+     *
+     * @param mBitmap     源位图
+     * @param leftPadding 左侧补白的像素数
+     * @return 宽为 (width + leftPadding) 的亮度平面，每像素一个字节
+     */
+    public static byte[] toLuma(Bitmap mBitmap, int leftPadding) {
+        return Luma.toLuma(new BitmapRowSource(mBitmap), leftPadding, PARALLEL);
+    }
 
-                ++k;
-            }
-        }
+    public static byte[] thresholdToBWPic(Bitmap mBitmap) {
+        return thresholdToBWPic(toLuma(mBitmap, 0), mBitmap.getWidth(), mBitmap.getHeight());
+    }
 
+    /**
+     * 以平均亮度为阈值二值化
+     *
+     * @param luma  亮度平面
+     * @param xsize 宽
+     * @param ysize 高
+     * @return 每像素一个字节，1 为黑点
+     */
+    public static byte[] thresholdToBWPic(byte[] luma, int xsize, int ysize) {
+        return Dither.threshold(luma, xsize, ysize, PARALLEL);
     }
 
     public static byte[] eachLinePixToCmd(byte[] src, int nWidth, int nMode) {
-        int nHeight = src.length / nWidth;
-        int nBytesPerLine = nWidth / 8;
-        byte[] data = new byte[nHeight * (8 + nBytesPerLine)];
-        boolean offset = false;
-        int k = 0;
-
-        for (int i = 0; i < nHeight; ++i) {
-            int var10 = i * (8 + nBytesPerLine);
-            //GS v 0 m xL xH yL yH d1....dk 打印光栅位图
-            data[var10 + 0] = 29;//GS
-            data[var10 + 1] = 118;//v
-            data[var10 + 2] = 48;//0
-            data[var10 + 3] = (byte) (nMode & 1);
-            data[var10 + 4] = (byte) (nBytesPerLine % 256);//xL
-            data[var10 + 5] = (byte) (nBytesPerLine / 256);//xH
-            data[var10 + 6] = 1;//yL
-            data[var10 + 7] = 0;//yH
-
-            for (int j = 0; j < nBytesPerLine; ++j) {
-                data[var10 + 8 + j] = (byte) (p0[src[k]] + p1[src[k + 1]] + p2[src[k + 2]] + p3[src[k + 3]] + p4[src[k + 4]] + p5[src[k + 5]] + p6[src[k + 6]] + src[k + 7]);
-                k += 8;
-            }
-        }
-
-        return data;
+        return RasterCommands.rasterLines(src, nWidth, nMode, PARALLEL);
     }
 
-    public static byte[] pixToTscCmd(byte[] src) {
-        byte[] data = new byte[src.length / 8];
-        int k = 0;
+    /**
+     * 打印位图函数，使用 ESC * 24 点双密度列位图
+     * 部分较旧的打印机处理列位图比 GS v 0 快，或者不支持 GS v 0
+     *
+     * @param mBitmap
+     * @param nWidth      打印宽度(点)
+     * @param leftPadding
+     * @param dither      二值化方式, DITHER_*
+     * @return
+     */
+    public static byte[] POS_PrintBMP_BitImage(Bitmap mBitmap, int nWidth, int leftPadding, int dither) {
+        int width = ((nWidth + 7) / 8) * 8;
+        int height = mBitmap.getHeight() * width / mBitmap.getWidth();
+        int left = leftPadding == 0 ? 0 : ((leftPadding + 7) / 8) * 8;
 
-        for (int j = 0; k < data.length; ++k) {
-            byte temp = (byte) (p0[src[j]] + p1[src[j + 1]] + p2[src[j + 2]] + p3[src[j + 3]] + p4[src[j + 4]] + p5[src[j + 5]] + p6[src[j + 6]] + src[j + 7]);
-            data[k] = (byte) (~temp);
-            j += 8;
+        Bitmap rszBitmap = mBitmap;
+        if (mBitmap.getWidth() != width) {
+            rszBitmap = Bitmap.createScaledBitmap(mBitmap, width, height, true);
         }
-
-        return data;
+        return pixToEscBitImageCmd(toBWPix(rszBitmap, left, dither), width + left);
     }
-    public static byte[] pixToEscRastBitImageCmd(byte[] src) {
-        byte[] data = new byte[src.length / 8];
-        int i = 0;
 
-        for (int k = 0; i < data.length; ++i) {
-            data[i] = (byte) (p0[src[k]] + p1[src[k + 1]] + p2[src[k + 2]] + p3[src[k + 3]] + p4[src[k + 4]] + p5[src[k + 5]] + p6[src[k + 6]] + src[k + 7]);
-            k += 8;
-        }
+    /**
+     * 点阵转 ESC * 指令
+     *
+     * @param src    每像素一个字节
+     * @param nWidth 宽度(点)，8 的倍数
+     * @return
+     */
+    public static byte[] pixToEscBitImageCmd(byte[] src, int nWidth) {
+        return packedToEscBitImageCmd(pixToEscRastBitImageCmd(src), nWidth, 0);
+    }
 
-        return data;
+    /**
+     * 已打包的 1 位点阵转 ESC * 指令：每 24 行一条，每列 3 字节(高位在上)，条间行距设为 24 点，结束后恢复默认行距
+     * 逐 8x8 位块把行转置为列
+     *
+     * @param packed      逐行数据，每行 (nWidth + 7) / 8 字节，高位在左，1 为黑点
+     * @param nWidth      宽度(点)
+     * @param leftPadding 左侧留白的像素数
+     * @return
+     */
+    public static byte[] packedToEscBitImageCmd(byte[] packed, int nWidth, int leftPadding) {
+        return RasterCommands.bitImageBands(packed, nWidth, leftPadding);
     }
-    public static byte[] pixToEscNvBitImageCmd(byte[] src, int width, int height) {
-        byte[] data = new byte[src.length / 8 + 4];
-        data[0] = (byte) (width / 8 % 256);
-        data[1] = (byte) (width / 8 / 256);
-        data[2] = (byte) (height / 8 % 256);
-        data[3] = (byte) (height / 8 / 256);
-        boolean k = false;
-
-        for (int i = 0; i < width; ++i) {
-            int var7 = 0;
-
-            for (int j = 0; j < height / 8; ++j) {
-                data[4 + j + i * height / 8] = (byte) (p0[src[i + var7]] + p1[src[i + var7 + 1 * width]] + p2[src[i + var7 + 2 * width]] + p3[src[i + var7 + 3 * width]] + p4[src[i + var7 + 4 * width]] + p5[src[i + var7 + 5 * width]] + p6[src[i + var7 + 6 * width]] + src[i + var7 + 7 * width]);
-                var7 += 8 * width;
-            }
-        }
 
-        return data;
+    /**
+     * 已打包的 1 位点阵直接逐行生成 GS v 0 指令，不经解码和二值化
+     *
+     * @param packed      逐行数据，每行 (nWidth + 7) / 8 字节，高位在左，1 为黑点
+     * @param nWidth      宽度(点)
+     * @param leftPadding 左侧留白的像素数，按 8 点取整
+     * @param nMode       打印模式
+     * @return
+     */
+    public static byte[] eachLinePackedToCmd(byte[] packed, int nWidth, int leftPadding, int nMode) {
+        return RasterCommands.rasterLinesPacked(packed, nWidth, leftPadding, nMode);
     }
-    public static byte[] bitmapToBWPix(Bitmap mBitmap) {
-        int[] pixels = new int[mBitmap.getWidth() * mBitmap.getHeight()];
-        byte[] data = new byte[mBitmap.getWidth() * mBitmap.getHeight()];
-        Bitmap grayBitmap = toGrayscale(mBitmap);
-        grayBitmap.getPixels(pixels, 0, mBitmap.getWidth(), 0, 0, mBitmap.getWidth(), mBitmap.getHeight());
-        format_K_dither16x16(pixels, grayBitmap.getWidth(), grayBitmap.getHeight(), data);
-        return data;
+
+    public static byte[] pixToTscCmd(byte[] src) {
+        return RasterCommands.packInverted(src);
     }
 
-    private static void format_K_dither16x16(int[] orgpixels, int xsize, int ysize, byte[] despixels) {
-        int k = 0;
+    public static byte[] pixToEscRastBitImageCmd(byte[] src) {
+        return RasterCommands.pack(src);
+    }
 
-        for (int y = 0; y < ysize; ++y) {
-            for (int x = 0; x < xsize; ++x) {
-                if ((orgpixels[k] & 255) > Floyd16x16[x & 15][y & 15]) {
-                    despixels[k] = 0;
-                } else {
-                    despixels[k] = 1;
-                }
+    public static byte[] pixToEscNvBitImageCmd(byte[] src, int width, int height) {
+        return RasterCommands.columns(src, width, height);
+    }
 
-                ++k;
-            }
-        }
+    public static byte[] bitmapToBWPix(Bitmap mBitmap) {
+        return toBWPix(mBitmap, 0, DITHER_ORDERED);
+    }
 
+    /**
+     * 位图转黑白点阵，除平均阈值外均逐行处理
+     * 大图按行分条并行处理；误差扩散的每条先预扩散其上方 SEED_ROWS 行，结果只与图片尺寸有关
+     *
+     * @param mBitmap     源位图
+     * @param leftPadding 左侧留白的像素数
+     * @param dither      二值化方式, DITHER_*
+     * @return 宽为 (width + leftPadding)，每像素一个字节，1 为黑点
+     */
+    public static byte[] toBWPix(Bitmap mBitmap, int leftPadding, int dither) {
+        return Dither.toBWPix(new BitmapRowSource(mBitmap), leftPadding, dither, PARALLEL);
     }
 
 }
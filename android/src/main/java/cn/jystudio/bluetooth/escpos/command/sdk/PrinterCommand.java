@@ -11,7 +11,7 @@ public class PrinterCommand {
      * @return
      */
     public static byte[] POS_Set_PrtInit() {
-        return Command.ESC_Init;
+        return new EscPosWriter(2).init().detach();
     }
 
     /**
@@ -20,7 +20,7 @@ public class PrinterCommand {
      * @return
      */
     public static byte[] POS_Set_LF() {
-        return Command.LF;
+        return new EscPosWriter(1).lf().detach();
     }
 
     /**
@@ -32,9 +32,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_PrtAndFeedPaper(int feed) {
         if (feed > 255 | feed < 0) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_J, Command.ESC_J.length);
-        data[2] = (byte) feed;
-        return data;
+        return new EscPosWriter(3).feed(feed).detach();
     }
 
     /**
@@ -43,7 +41,7 @@ public class PrinterCommand {
      * @return
      */
     public static byte[] POS_Set_PrtSelfTest() {
-        return Command.US_vt_eot;
+        return new EscPosWriter(3).selfTest().detach();
     }
 
     /**
@@ -57,10 +55,7 @@ public class PrinterCommand {
 
         if ((m < 1 || m > 9) | (t < 1 || t > 9)) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_B_m_n, Command.ESC_B_m_n.length);
-        data[2] = (byte) m;
-        data[3] = (byte) t;
-        return data;
+        return new EscPosWriter(4).beep(m, t).detach();
     }
 
     /**
@@ -72,9 +67,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_Cut(int cut) {
         if (cut > 255 | cut < 0) return null;
 
-        byte[] data = Arrays.copyOf(Command.GS_V_m_n, Command.GS_V_m_n.length);
-        data[3] = (byte) cut;
-        return data;
+        return new EscPosWriter(4).cut(cut).detach();
     }
 
     /**
@@ -89,11 +82,7 @@ public class PrinterCommand {
 
         if ((nMode < 0 || nMode > 1) | nTime1 < 0 | nTime1 > 255 | nTime2 < 0 | nTime2 > 255) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_p, Command.ESC_p.length);
-        data[2] = (byte) nMode;
-        data[3] = (byte) nTime1;
-        data[4] = (byte) nTime2;
-        return data;
+        return new EscPosWriter(5).cashDrawer(nMode, nTime1, nTime2).detach();
     }
 
     /**
@@ -105,10 +94,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_Absolute(int absolute) {
         if (absolute > 65535 | absolute < 0) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_Absolute, Command.ESC_Absolute.length);
-        data[2] = (byte) (absolute % 0x100);
-        data[3] = (byte) (absolute / 0x100);
-        return data;
+        return new EscPosWriter(4).absolutePosition(absolute).detach();
     }
 
     /**
@@ -120,10 +106,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_Relative(int relative) {
         if (relative < 0 | relative > 65535) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_Relative, Command.ESC_Relative.length);
-        data[2] = (byte) (relative % 0x100);
-        data[3] = (byte) (relative / 0x100);
-        return data;
+        return new EscPosWriter(4).relativePosition(relative).detach();
     }
 
     /**
@@ -135,10 +118,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_LeftSP(int left) {
         if (left > 255 | left < 0) return null;
 
-        byte[] data = Arrays.copyOf(Command.GS_LeftSp, Command.GS_LeftSp.length);
-        data[2] = (byte) (left % 0x100);
-        data[3] = (byte) (left / 0x100);
-        return data;
+        return new EscPosWriter(4).leftMargin(left).detach();
     }
 
     /**
@@ -150,9 +130,7 @@ public class PrinterCommand {
     public static byte[] POS_S_Align(int align) {
         if ((align < 0 || align > 2) && (align < 48 || align > 50)) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_Align, Command.ESC_Align.length);
-        data[2] = (byte) align;
-        return data;
+        return new EscPosWriter(3).align(align).detach();
     }
 
     /**
@@ -164,10 +142,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_PrintWidth(int width) {
         if (width < 0 | width > 255) return null;
 
-        byte[] data = Arrays.copyOf(Command.GS_W, Command.GS_W.length);
-        data[2] = (byte) (width % 0x100);
-        data[3] = (byte) (width / 0x100);
-        return data;
+        return new EscPosWriter(4).printWidth(width).detach();
     }
 
     /**
@@ -176,7 +151,7 @@ public class PrinterCommand {
      * @return
      */
     public static byte[] POS_Set_DefLineSpace() {
-        return Command.ESC_Two;
+        return new EscPosWriter(2).defaultLineSpacing().detach();
     }
 
     /**
@@ -188,9 +163,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_LineSpace(int space) {
         if (space < 0 | space > 255) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_Three, Command.ESC_Three.length);
-        data[2] = (byte) space;
-        return data;
+        return new EscPosWriter(3).lineSpacing(space).detach();
     }
 
     /**
@@ -202,9 +175,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_CodePage(int page) {
         if (page > 255) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_t, Command.ESC_t.length);
-        data[2] = (byte) page;
-        return data;
+        return new EscPosWriter(3).codePage(page).detach();
     }
 
     /**
@@ -223,27 +194,47 @@ public class PrinterCommand {
             return null;
         }
 
-        byte[] pbString = null;
+        // GS ! n, ESC t n, ESC M n, 然后是文本，文本直接编码到指令之后
+        byte[] data = null;
         try {
-            pbString = pszString.getBytes(encoding);
+            data = TextEncoder.encode(pszString, encoding, 9);
         } catch (UnsupportedEncodingException e) {
             return null;
         }
 
         byte[] intToWidth = {0x00, 0x10, 0x20, 0x30};
         byte[] intToHeight = {0x00, 0x01, 0x02, 0x03};
-        byte[] gsExclamationMark = Arrays.copyOf(Command.GS_ExclamationMark, Command.GS_ExclamationMark.length);
-        gsExclamationMark[2] = (byte) (intToWidth[nWidthTimes] + intToHeight[nHeightTimes]);
-        byte[] escT = Arrays.copyOf(Command.ESC_t, Command.ESC_t.length);
-        escT[2] = (byte) codepage;
-        byte[] escM = Arrays.copyOf(Command.ESC_M, Command.ESC_M.length);
-        escM[2] = (byte) nFontType;
-        byte[] data = null;
-        data = concatAll(gsExclamationMark, escT, escM, pbString);
-        
+        data[0] = 29;
+        data[1] = 33;
+        data[2] = (byte) (intToWidth[nWidthTimes] + intToHeight[nHeightTimes]);
+        data[3] = 27;
+        data[4] = 116;
+        data[5] = (byte) codepage;
+        data[6] = 27;
+        data[7] = 77;
+        data[8] = (byte) nFontType;
+
         return data;
     }
 
+    /**
+     * 打印文本，写入同一个打印任务
+     * 倍宽倍高、代码页和字体只在与打印机当前状态不同时写入
+     *
+     * @param out 打印任务
+     * @return 参数无效时返回 false，什么都不写
+     * @see #POS_Print_Text(String, String, int, int, int, int)
+     */
+    public static boolean POS_Print_Text(EscPosWriter out, CharSequence text, String encoding, int codepage,
+                                         int nWidthTimes, int nHeightTimes, int nFontType) throws UnsupportedEncodingException {
+        if (codepage < 0 || codepage > 255 || text == null || text.length() < 1
+                || nWidthTimes < 0 || nWidthTimes > 3 || nHeightTimes < 0 || nHeightTimes > 3) {
+            return false;
+        }
+        out.charSize(nWidthTimes << 4 | nHeightTimes).codePage(codepage).font(nFontType).text(text, encoding);
+        return true;
+    }
+
     /**
      * 加粗指令(最低位为1有效)
      *
@@ -251,12 +242,7 @@ public class PrinterCommand {
      * @return
      */
     public static byte[] POS_Set_Bold(int bold) {
-        byte[] escE = Arrays.copyOf(Command.ESC_E, Command.ESC_E.length);
-        byte[] escG = Arrays.copyOf(Command.ESC_G, Command.ESC_G.length);
-
-        escE[2] = (byte) bold;
-        escG[2] = (byte) bold;
-        return concatAll(escE, escG);
+        return new EscPosWriter(6).bold(bold).detach();
     }
 
     /**
@@ -266,9 +252,7 @@ public class PrinterCommand {
      * @return
      */
     public static byte[] POS_Set_LeftBrace(int brace) {
-        byte[] data = Arrays.copyOf(Command.ESC_LeftBrace, Command.ESC_LeftBrace.length);
-        data[2] = (byte) brace;
-        return data;
+        return new EscPosWriter(3).upsideDown(brace).detach();
     }
 
     /**
@@ -279,11 +263,7 @@ public class PrinterCommand {
      */
     public static byte[] POS_Set_UnderLine(int line) {
         if ((line < 0 || line > 2)) return null;
-        byte[] escMins = Arrays.copyOf(Command.ESC_Minus, Command.ESC_Minus.length);
-        escMins[2] = (byte) line;
-        byte[] fsMinus = Arrays.copyOf(Command.FS_Minus, Command.FS_Minus.length);
-        fsMinus[2] = (byte) line;
-        return concatAll(escMins, fsMinus);
+        return new EscPosWriter(6).underline(line).detach();
     }
 
     /**
@@ -295,11 +275,7 @@ public class PrinterCommand {
      */
     public static byte[] POS_Set_FontSize(int size1, int size2) {
         if (size1 < 0 | size1 > 7 | size2 < 0 | size2 > 7) return null;
-        byte[] intToWidth = {0x00, 0x10, 0x20, 0x30, 0x40, 0x50, 0x60, 0x70};
-        byte[] intToHeight = {0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07};
-        byte[] data = Arrays.copyOf(Command.GS_ExclamationMark, Command.GS_ExclamationMark.length);
-        data[2] = (byte) (intToWidth[size1] + intToHeight[size2]);
-        return data;
+        return new EscPosWriter(3).charSize(size1 << 4 | size2).detach();
     }
 
     /**
@@ -309,9 +285,7 @@ public class PrinterCommand {
      * @return
      */
     public static byte[] POS_Set_Inverse(int inverse) {
-        byte[] data = Arrays.copyOf(Command.GS_B, Command.GS_B.length);
-        data[2] = (byte) inverse;
-        return data;
+        return new EscPosWriter(3).inverse(inverse).detach();
     }
 
     /**
@@ -323,9 +297,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_Rotate(int rotate) {
         if (rotate < 0 || rotate > 1) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_V, Command.ESC_V.length);
-        data[2] = (byte) rotate;
-        return data;
+        return new EscPosWriter(3).rotate(rotate).detach();
     }
 
     /**
@@ -337,9 +309,7 @@ public class PrinterCommand {
     public static byte[] POS_Set_ChoseFont(int font) {
         if (font > 1 | font < 0) return null;
 
-        byte[] data = Arrays.copyOf(Command.ESC_M, Command.ESC_M.length);
-        data[2] = (byte) font;
-        return data;
+        return new EscPosWriter(3).font(font).detach();
 
     }
 
@@ -350,7 +320,7 @@ public class PrinterCommand {
      * @return
      */
     public static byte[] POS_Cut_One_Point() {
-        return Command.GS_i;
+        return new EscPosWriter(2).cutOnePoint().detach();
     }    
 
 //***********************************以下函数为公开函数***********************************************************//
@@ -372,25 +342,23 @@ public class PrinterCommand {
             return null;
         }
 
-        byte[] bCodeData = null;
+        byte[] command = null;
         try {
-            bCodeData = str.getBytes("GBK");
+            command = TextEncoder.encode(str, "GBK", 7);
 
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
             return null;
         }
-
-        byte[] command = new byte[bCodeData.length + 7];
+        int length = command.length - 7;
 
         command[0] = 27;
         command[1] = 90;
         command[2] = ((byte) nVersion);
         command[3] = ((byte) nErrorCorrectionLevel);
         command[4] = ((byte) nMagnification);
-        command[5] = (byte) (bCodeData.length & 0xff);
-        command[6] = (byte) ((bCodeData.length & 0xff00) >> 8);
-        System.arraycopy(bCodeData, 0, command, 7, bCodeData.length);
+        command[5] = (byte) (length & 0xff);
+        command[6] = (byte) ((length & 0xff00) >> 8);
 
         return command;
     }
@@ -413,17 +381,15 @@ public class PrinterCommand {
                 | nHeight < 1 | nHeight > 255 | str.length() == 0)
             return null;
 
-        byte[] bCodeData = null;
+        byte[] command = null;
         try {
-            bCodeData = str.getBytes("GBK");
+            command = TextEncoder.encode(str, "GBK", 16);
 
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
             return null;
         }
 
-        byte[] command = new byte[bCodeData.length + 16];
-
         command[0] = 29;
         command[1] = 119;
         command[2] = ((byte) nWidthX);
@@ -439,8 +405,7 @@ public class PrinterCommand {
         command[12] = 29;
         command[13] = 107;
         command[14] = ((byte) nType);
-        command[15] = (byte) (byte) bCodeData.length;
-        System.arraycopy(bCodeData, 0, command, 16, bCodeData.length);
+        command[15] = (byte) (command.length - 16);
 
 
         return command;
@@ -462,16 +427,14 @@ public class PrinterCommand {
                 | font < 0 | font > 1)
             return null;
 
-        byte[] strData = null;
+        byte[] command = null;
         try {
-            strData = str.getBytes("GBK");
+            command = TextEncoder.encode(str, "GBK", 9);
         } catch (UnsupportedEncodingException e) {
             e.printStackTrace();
             return null;
         }
 
-        byte[] command = new byte[strData.length + 9];
-
         byte[] intToWidth = {0x00, 0x10, 0x20, 0x30};//最大四倍宽
         byte[] intToHeight = {0x00, 0x01, 0x02, 0x03};//最大四倍高
 
@@ -484,13 +447,144 @@ public class PrinterCommand {
         command[6] = 29;
         command[7] = 33;
         command[8] = (byte) (intToWidth[widthsize] + intToHeight[heigthsize]);
+        return command;
+    }
+
+    /**
+     * 定义 NV 位图 (FS q)，打印机中原有的 NV 位图全部被替换
+     *
+     * @param images 每幅为 PrintPicture.POS_NvBitImage 的结果，依次编号 1~n
+     * @return
+     */
+    public static byte[] POS_Set_NvBitImages(byte[]... images) {
+        if (images.length < 1 || images.length > 255) return null;
+
+        int length = 3;
+        for (byte[] image : images) {
+            length += image.length;
+        }
+        EscPosWriter out = new EscPosWriter(length);
+        out.defineNvBitImages(images.length);
+        for (byte[] image : images) {
+            out.write(image);
+        }
+        return out.detach();
+    }
+
+    /**
+     * 打印 NV 位图 (FS p)
+     *
+     * @param n 位图编号(1~255)
+     * @param m 模式 0-正常 1-倍宽 2-倍高 3-倍宽倍高
+     * @return
+     */
+    public static byte[] POS_Print_NvBitImage(int n, int m) {
+        if (n < 1 | n > 255 | m < 0 | m > 3) return null;
 
-        System.arraycopy(strData, 0, command, 9, strData.length);
+        return new EscPosWriter(4).printNvBitImage(n, m).detach();
+    }
+
+    /**
+     * 定义 NV 图形 (GS 8 L fn=67)，按键码单独保存，不影响其它图形
+     *
+     * @param kc1    键码1 (32~126)
+     * @param kc2    键码2 (32~126)
+     * @param raster 逐行打包的位图数据, PrintPicture.pixToEscRastBitImageCmd 的结果
+     * @param width  宽度(点)，8 的倍数
+     * @param height 高度(点)
+     * @return
+     */
+    public static byte[] POS_Set_NvGraphics(int kc1, int kc2, byte[] raster, int width, int height) {
+        if (kc1 < 32 | kc1 > 126 | kc2 < 32 | kc2 > 126 | width < 1 | width > 8192 | height < 1 | height > 2304
+                | raster.length != width / 8 * height) return null;
+
+        int p = raster.length + 11;
+        byte[] command = new byte[raster.length + 18];
+        command[0] = 29;
+        command[1] = 56;
+        command[2] = 76;
+        command[3] = (byte) p;
+        command[4] = (byte) (p >> 8);
+        command[5] = (byte) (p >> 16);
+        command[6] = (byte) (p >> 24);
+        command[7] = 48;
+        command[8] = 67;
+        command[9] = 48;//raster
+        command[10] = (byte) kc1;
+        command[11] = (byte) kc2;
+        command[12] = 1;//单色
+        command[13] = (byte) (width % 256);
+        command[14] = (byte) (width / 256);
+        command[15] = (byte) (height % 256);
+        command[16] = (byte) (height / 256);
+        command[17] = 49;
+        System.arraycopy(raster, 0, command, 18, raster.length);
         return command;
     }
 
+    /**
+     * 打印 NV 图形 (GS ( L fn=69)
+     *
+     * @param kc1 键码1
+     * @param kc2 键码2
+     * @return
+     */
+    public static byte[] POS_Print_NvGraphics(int kc1, int kc2) {
+        if (kc1 < 32 | kc1 > 126 | kc2 < 32 | kc2 > 126) return null;
+
+        return new EscPosWriter(11).nvGraphics(69, kc1, kc2).detach();
+    }
+
+    /**
+     * 删除 NV 图形 (GS ( L fn=66)
+     *
+     * @param kc1 键码1
+     * @param kc2 键码2
+     * @return
+     */
+    public static byte[] POS_Delete_NvGraphics(int kc1, int kc2) {
+        if (kc1 < 32 | kc1 > 126 | kc2 < 32 | kc2 > 126) return null;
+
+        return new EscPosWriter(9).nvGraphics(66, kc1, kc2).detach();
+    }
+
+    /**
+     * 打印下传位图 (GS /)
+     *
+     * @param m 模式 0-正常 1-倍宽 2-倍高 3-倍宽倍高
+     * @return
+     */
+    public static byte[] POS_Print_DownloadedBitImage(int m) {
+        if (m < 0 | m > 3) return null;
+
+        return new EscPosWriter(3).printDownloadedBitImage(m).detach();
+    }
+
+    // 版本 40 字节模式在 L M Q H 各纠错级别下的最大数据长度
+    private static final int[] QR_BYTE_CAPACITY = {2953, 2331, 1663, 1273};
+
+    /**
+     * 打印机内置二维码 (GS ( k 模型 2)：选择模型、模块大小和纠错级别，存入数据后打印
+     * 只发送数据本身，不必在手机上生成点阵
+     *
+     * @param data                  二维码数据，按字节模式编码
+     * @param nModuleSize           模块大小(点) 1~16
+     * @param nErrorCorrectionLevel 纠错级别 0-L 1-M 2-Q 3-H
+     * @return 数据超出该纠错级别的字节模式容量时返回 null
+     */
+    public static byte[] POS_Print_QRCode(byte[] data, int nModuleSize, int nErrorCorrectionLevel) {
+        if (nModuleSize < 1 | nModuleSize > 16 | nErrorCorrectionLevel < 0 | nErrorCorrectionLevel > 3
+                || data.length < 1 || data.length > QR_BYTE_CAPACITY[nErrorCorrectionLevel])
+            return null;
+
+        return new EscPosWriter(41 + data.length).qrCode(data, nModuleSize, nErrorCorrectionLevel).detach();
+    }
+
 //**********************************************************************************************************//
 
+    /**
+     * Jobs of several commands are better written into one {@link EscPosWriter}, which copies each piece once.
+     */
     public static byte[] concatAll(byte[] first, byte[]... rest) {
         int totalLength = first.length;
         for (byte[] array : rest) {
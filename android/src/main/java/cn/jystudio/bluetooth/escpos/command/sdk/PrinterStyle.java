@@ -0,0 +1,63 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+/**
+ * Text modes the printer is known to be in, so {@link EscPosWriter} only writes the ones that change.
+ * <p>
+ * A field is {@link #UNKNOWN} until a command sets it, then it holds the argument written.
+ * {@link #reset()} follows ESC @, {@link #forget()} is for anything else the printer may have done:
+ * a new connection, a power cycle, commands sent around the writer.
+ */
+public class PrinterStyle {
+    public static final int UNKNOWN = -1;
+    // lineSpacing after ESC 2, ESC 3 n keeps n (0~255)
+    public static final int DEFAULT_LINE_SPACING = 256;
+
+    int codePage;
+    int charSize;
+    int font;
+    int bold;
+    int underline;
+    int align;
+    int lineSpacing;
+
+    public PrinterStyle() {
+        forget();
+    }
+
+    /**
+     * The modes after ESC @. The code page goes back to the one configured in the printer, which
+     * is not necessarily 0, so it stays unknown.
+     */
+    public void reset() {
+        codePage = UNKNOWN;
+        charSize = 0;
+        font = 0;
+        bold = 0;
+        underline = 0;
+        align = 0;
+        lineSpacing = DEFAULT_LINE_SPACING;
+    }
+
+    /**
+     * Take the modes of another style, to go on from where a job written with it leaves the printer.
+     */
+    public void copyFrom(PrinterStyle other) {
+        codePage = other.codePage;
+        charSize = other.charSize;
+        font = other.font;
+        bold = other.bold;
+        underline = other.underline;
+        align = other.align;
+        lineSpacing = other.lineSpacing;
+    }
+
+    public void forget() {
+        codePage = UNKNOWN;
+        charSize = UNKNOWN;
+        font = UNKNOWN;
+        bold = UNKNOWN;
+        underline = UNKNOWN;
+        align = UNKNOWN;
+        lineSpacing = UNKNOWN;
+    }
+}
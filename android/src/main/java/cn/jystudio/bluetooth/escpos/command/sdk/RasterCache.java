@@ -0,0 +1,250 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of encoded raster output, keyed by a hash of the image as it came in
+ * plus every parameter that changes the bytes.
+ * <p>
+ * Cached arrays are handed out as they are stored, callers must not modify them.
+ */
+public class RasterCache {
+    public static final int DEFAULT_MAX_BYTES = 2 * 1024 * 1024;
+    /**
+     * Profile signature of the {@link DiskRasterCache}: the keys hold every encoding parameter,
+     * bump this when an encoder gives other bytes for the same key.
+     */
+    public static final String ENCODER_VERSION = "raster-1";
+
+    private static final RasterCache INSTANCE = new RasterCache(DEFAULT_MAX_BYTES);
+
+    public static RasterCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<Key, byte[]>(16, 0.75f, true);
+    private long maxBytes;
+    private long size = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long diskHits = 0;
+    private DiskRasterCache diskCache;
+
+    public RasterCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Key of a GS v 0 raster built by {@link PrintPicture#POS_PrintBMP}.
+     */
+    public static Key escposKey(CharSequence input, int width, int left, int mode, int dither) {
+        return new Key("ESC", hash(input), input.length(), width, left, mode, dither);
+    }
+
+    /**
+     * Key of ESC * column bands built by {@link PrintPicture#POS_PrintBMP_BitImage}.
+     */
+    public static Key escposBitImageKey(CharSequence input, int width, int left, int dither) {
+        return new Key("ESCB", hash(input), input.length(), width, left, 0, dither);
+    }
+
+    /**
+     * Key of a GS * download built by {@link PrintPicture#POS_DownloadBitImage}.
+     */
+    public static Key downloadKey(CharSequence input, int width, int dither) {
+        return new Key("DL", hash(input), input.length(), width, 0, 0, dither);
+    }
+
+    /**
+     * Key of a TSC BITMAP payload built by {@code TscCommand.addBitmap}.
+     */
+    public static Key tscKey(CharSequence input, int width, int dither) {
+        return new Key("TSC", hash(input), input.length(), width, 0, 0, dither);
+    }
+
+    /**
+     * Key of the printQRCode output, in the QR format of the printer profile.
+     */
+    public static Key qrKey(CharSequence content, int size, int correctionLevel, int qrFormat) {
+        return new Key("QR" + qrFormat, hash(content), content.length(), size, 0, correctionLevel, 0);
+    }
+
+    /**
+     * Key of a GS k barcode command, with the height in left and the HRI font and position in mode and dither.
+     */
+    public static Key barcodeKey(CharSequence content, int type, int widthX, int height, int hriFont, int hriPosition) {
+        return new Key("BAR" + type, hash(content), content.length(), widthX, height, hriFont, hriPosition);
+    }
+
+    /**
+     * 64 bit FNV-1a over the UTF-16 code units.
+     */
+    public static long hash(CharSequence input) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = input.length(); i < n; ++i) {
+            h = (h ^ input.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Back this cache with a persistent one, consulted on a miss and written on every put.
+     */
+    public synchronized void setDiskCache(DiskRasterCache diskCache) {
+        this.diskCache = diskCache;
+    }
+
+    public synchronized DiskRasterCache getDiskCache() {
+        return diskCache;
+    }
+
+    public byte[] get(Key key) {
+        DiskRasterCache disk;
+        synchronized (this) {
+            byte[] data = entries.get(key);
+            if (data != null) {
+                hits++;
+                return data;
+            }
+            disk = diskCache;
+            if (disk == null) {
+                misses++;
+                return null;
+            }
+        }
+        // read from flash without the lock, memory hits of other callers do not wait for it
+        byte[] data = disk.get(key);
+        synchronized (this) {
+            if (data != null) {
+                diskHits++;
+                putInMemory(key, data);
+            } else {
+                misses++;
+            }
+        }
+        return data;
+    }
+
+    public synchronized void put(Key key, byte[] data) {
+        if (data == null) {
+            return;
+        }
+        if (diskCache != null) {
+            diskCache.put(key, data);
+        }
+        putInMemory(key, data);
+    }
+
+    private void putInMemory(Key key, byte[] data) {
+        if (data.length > maxBytes) {
+            return;
+        }
+        byte[] old = entries.put(key, data);
+        if (old != null) {
+            size -= old.length;
+        }
+        size += data.length;
+        trimTo(maxBytes);
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimTo(maxBytes);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+        if (diskCache != null) {
+            diskCache.clear();
+        }
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    private void trimTo(long bytes) {
+        Iterator<Map.Entry<Key, byte[]>> it = entries.entrySet().iterator();
+        while (size > bytes && it.hasNext()) {
+            size -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    public static final class Key {
+        private final String kind;
+        private final long hash;
+        private final int length;
+        private final int width;
+        private final int left;
+        private final int mode;
+        private final int dither;
+
+        Key(String kind, long hash, int length, int width, int left, int mode, int dither) {
+            this.kind = kind;
+            this.hash = hash;
+            this.length = length;
+            this.width = width;
+            this.left = left;
+            this.mode = mode;
+            this.dither = dither;
+        }
+
+        /**
+         * The same output cropped to its content bounding box.
+         */
+        public Key cropped() {
+            return new Key(kind + "C", hash, length, width, left, mode, dither);
+        }
+
+        /**
+         * Name of the entry in {@link DiskRasterCache}, made of every field of the key.
+         */
+        String fileName() {
+            return kind + "-" + Long.toHexString(hash) + "-" + length + "-" + width + "-" + left + "-" + mode + "-" + dither;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && length == k.length && width == k.width && left == k.left
+                    && mode == k.mode && dither == k.dither && kind.equals(k.kind);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = (int) (hash ^ (hash >>> 32));
+            h = 31 * h + length;
+            h = 31 * h + width;
+            h = 31 * h + left;
+            h = 31 * h + mode;
+            h = 31 * h + dither;
+            return 31 * h + kind.hashCode();
+        }
+    }
+}
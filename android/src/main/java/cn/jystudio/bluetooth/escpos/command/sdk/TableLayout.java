@@ -0,0 +1,158 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import java.util.Arrays;
+
+/**
+ * Lays text out in fixed width columns for printColumn: each cell is wrapped to its column, aligned
+ * and padded, and the rows of a whole table are appended to one buffer, ready to be encoded at once.
+ * <p>
+ * Widths count character cells, see {@link DisplayWidth}: a Chinese character takes two. Each column
+ * keeps its last cell as padding, so text wraps one cell before the column width.
+ */
+public class TableLayout {
+    public static final int ALIGN_LEFT = 0;
+    public static final int ALIGN_CENTER = 1;
+    public static final int ALIGN_RIGHT = 2;
+
+    private static final String LINE_END = "\n\r";
+    private static final int PADDING = 1;
+
+    private final int[] widths;
+    private final int[] aligns;
+    private final boolean ambiguousWide;
+    // per column, the lines of the current cell as start, end and cells less chars triples
+    private final int[][] lines;
+    private final int[] lineCounts;
+
+    public TableLayout(int[] widths, int[] aligns) {
+        this(widths, aligns, true);
+    }
+
+    /**
+     * @param widths        column widths in cells, padding included
+     * @param aligns        {@link #ALIGN_LEFT}, {@link #ALIGN_CENTER} or {@link #ALIGN_RIGHT} per column
+     * @param ambiguousWide whether the text is printed in an East Asian code page, see {@link DisplayWidth#isEastAsian}
+     */
+    public TableLayout(int[] widths, int[] aligns, boolean ambiguousWide) {
+        if (widths.length != aligns.length) {
+            throw new IllegalArgumentException("widths and aligns differ in length");
+        }
+        this.widths = widths.clone();
+        this.aligns = aligns.clone();
+        this.ambiguousWide = ambiguousWide;
+        this.lines = new int[widths.length][];
+        this.lineCounts = new int[widths.length];
+        for (int i = 0; i < widths.length; ++i) {
+            lines[i] = new int[3 * 4];
+        }
+    }
+
+    /**
+     * Total width of the columns, to check against the line width of the printer.
+     */
+    public int width() {
+        int total = 0;
+        for (int width : widths) {
+            total += width;
+        }
+        return total;
+    }
+
+    /**
+     * Append the lines of one row, each ending with a line feed; a row takes as many lines as its
+     * longest cell.
+     *
+     * @param texts one text per column
+     */
+    public void appendRow(CharSequence[] texts, StringBuilder out) {
+        if (texts.length != widths.length) {
+            throw new IllegalArgumentException("row has " + texts.length + " cells for " + widths.length + " columns");
+        }
+        int rowLines = 0;
+        for (int column = 0; column < widths.length; ++column) {
+            wrap(column, texts[column]);
+            rowLines = Math.max(rowLines, lineCounts[column]);
+        }
+        for (int line = 0; line < rowLines; ++line) {
+            for (int column = 0; column < widths.length; ++column) {
+                if (line < lineCounts[column]) {
+                    appendCell(column, texts[column], line, out);
+                } else {
+                    appendSpaces(out, widths[column]);
+                }
+            }
+            out.append(LINE_END);
+        }
+    }
+
+    /**
+     * A line ends with the character that reaches the column width less the padding, so a wide
+     * character at the end may take the padding cell. Surrogate pairs are never split.
+     */
+    private void wrap(int column, CharSequence text) {
+        int width = widths[column] - PADDING;
+        int count = 0;
+        int start = 0;
+        int cells = 0;
+        // cells less chars of the line: +1 for a wide BMP character, -1 for a narrow surrogate pair
+        int extra = 0;
+        for (int i = 0, n = text.length(); i < n; ) {
+            int codePoint = Character.codePointAt(text, i);
+            int chars = Character.charCount(codePoint);
+            int w = DisplayWidth.of(codePoint, ambiguousWide);
+            extra += w - chars;
+            i += chars;
+            if (cells + w < width) {
+                cells += w;
+            } else {
+                count = addLine(column, count, start, i, extra);
+                start = i;
+                cells = 0;
+                extra = 0;
+            }
+        }
+        if (start < text.length()) {
+            count = addLine(column, count, start, text.length(), extra);
+        }
+        lineCounts[column] = count;
+    }
+
+    private int addLine(int column, int count, int start, int end, int extra) {
+        int[] l = lines[column];
+        if (3 * count + 3 > l.length) {
+            l = lines[column] = Arrays.copyOf(l, l.length * 2);
+        }
+        l[3 * count] = start;
+        l[3 * count + 1] = end;
+        l[3 * count + 2] = extra;
+        return count + 1;
+    }
+
+    /**
+     * The line in a field of the column width, in characters: a wide character fills two cells
+     * with one character, so the field is one character shorter for each.
+     */
+    private void appendCell(int column, CharSequence text, int line, StringBuilder out) {
+        int[] l = lines[column];
+        int start = l[3 * line];
+        int end = l[3 * line + 1];
+        int extra = l[3 * line + 2];
+        int length = end - start;
+        int room = widths[column] - PADDING - extra;
+        int indent = 0;
+        if (aligns[column] == ALIGN_CENTER && length < room) {
+            indent = (room - length) / 2;
+        } else if (aligns[column] == ALIGN_RIGHT && length < room) {
+            indent = room - length;
+        }
+        appendSpaces(out, indent);
+        out.append(text, start, end);
+        appendSpaces(out, room + PADDING - indent - length);
+    }
+
+    private static void appendSpaces(StringBuilder out, int n) {
+        for (int i = 0; i < n; ++i) {
+            out.append(' ');
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Text to printer bytes, giving the same bytes as {@link String#getBytes(String)} without looking
+ * the charset up by name or allocating intermediate arrays on every call.
+ * <p>
+ * Single-byte code pages (CP437, CP850, CP1252 ...) go through a char to byte table built once per
+ * charset. Other charsets use a {@link CharsetEncoder} cached per thread, writing straight into
+ * the caller's buffer, or into a per-thread scratch buffer copied once into a new array.
+ */
+public class TextEncoder {
+    // scratch buffers past this are not kept for the next call
+    private static final int MAX_SCRATCH = 64 * 1024;
+
+    private static final Map<String, Codec> CODECS = new ConcurrentHashMap<String, Codec>();
+
+    private static final ThreadLocal<PerThread> PER_THREAD = new ThreadLocal<PerThread>() {
+        @Override
+        protected PerThread initialValue() {
+            return new PerThread();
+        }
+    };
+
+    /**
+     * Encode {@code text} into a new array, {@code offset} bytes after its start so a command
+     * header can be written in front without copying the text again.
+     *
+     * @return {@code offset} bytes left zero, then the encoded text
+     */
+    public static byte[] encode(CharSequence text, String encoding, int offset) throws UnsupportedEncodingException {
+        Codec codec = codec(encoding);
+        if (codec.table != null) {
+            byte[] data = new byte[offset + codec.singleByteLength(text)];
+            codec.encodeSingleByte(text, data, offset);
+            return data;
+        }
+        PerThread state = PER_THREAD.get();
+        ByteBuffer out = state.encode(codec.charset, text);
+        byte[] data = new byte[offset + out.position()];
+        System.arraycopy(out.array(), 0, data, offset, out.position());
+        state.release(out);
+        return data;
+    }
+
+    /**
+     * Encode {@code text} at {@code dst[off]}, with no intermediate copy. {@link #maxLength} bytes of
+     * room are always enough.
+     *
+     * @return the number of bytes written, or -1 when they did not fit: grow {@code dst} and call again
+     */
+    public static int encode(CharSequence text, String encoding, byte[] dst, int off) throws UnsupportedEncodingException {
+        Codec codec = codec(encoding);
+        if (codec.table != null) {
+            int room = dst.length - off;
+            return room >= text.length() || room >= codec.singleByteLength(text) ? codec.encodeSingleByte(text, dst, off) : -1;
+        }
+        return PER_THREAD.get().encode(codec.charset, text, dst, off);
+    }
+
+    /**
+     * Upper bound of the encoded length of {@code text}.
+     */
+    public static int maxLength(CharSequence text, String encoding) throws UnsupportedEncodingException {
+        Codec codec = codec(encoding);
+        // the same room the per-thread encoder writes into, stateful charsets add shift sequences on flush
+        return codec.table != null ? text.length() : (int) Math.ceil(text.length() * codec.maxBytesPerChar) + 16;
+    }
+
+    private static Codec codec(String encoding) throws UnsupportedEncodingException {
+        Codec codec = CODECS.get(encoding);
+        if (codec == null) {
+            Charset charset;
+            try {
+                charset = Charset.forName(encoding);
+            } catch (UnsupportedCharsetException e) {
+                throw new UnsupportedEncodingException(encoding);
+            } catch (IllegalCharsetNameException e) {
+                throw new UnsupportedEncodingException(encoding);
+            }
+            codec = new Codec(charset);
+            CODECS.put(encoding, codec);
+        }
+        return codec;
+    }
+
+    private static CharsetEncoder newEncoder(Charset charset) {
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private static class Codec {
+        final Charset charset;
+        final float maxBytesPerChar;
+        // single-byte charsets only: 256 pages of 256 chars, unmapped pages share one page
+        final byte[][] table;
+        final byte replacement;
+
+        Codec(Charset charset) {
+            this.charset = charset;
+            CharsetEncoder encoder = newEncoder(charset);
+            this.maxBytesPerChar = encoder.maxBytesPerChar();
+            this.replacement = encoder.replacement()[0];
+            this.table = encoder.maxBytesPerChar() == 1 && encoder.replacement().length == 1 ? buildTable(charset) : null;
+        }
+
+        private byte[][] buildTable(Charset charset) {
+            CharsetEncoder encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            byte[] unmapped = new byte[256];
+            Arrays.fill(unmapped, replacement);
+            byte[][] pages = new byte[256][];
+            char[] c = new char[1];
+            CharBuffer in = CharBuffer.wrap(c);
+            ByteBuffer out = ByteBuffer.allocate(4);
+            for (int page = 0; page < 256; ++page) {
+                byte[] bytes = null;
+                for (int i = 0; i < 256; ++i) {
+                    c[0] = (char) (page << 8 | i);
+                    if (Character.isSurrogate(c[0])) {
+                        continue;
+                    }
+                    in.clear();
+                    out.clear();
+                    encoder.reset();
+                    if (encoder.encode(in, out, true).isError() || encoder.flush(out).isError() || out.position() != 1) {
+                        continue;
+                    }
+                    if (bytes == null) {
+                        bytes = unmapped.clone();
+                    }
+                    bytes[i] = out.get(0);
+                }
+                pages[page] = bytes == null ? unmapped : bytes;
+            }
+            return pages;
+        }
+
+        // a surrogate pair is one unmappable character, replaced once
+        int singleByteLength(CharSequence text) {
+            int length = text.length();
+            for (int i = 0, n = text.length() - 1; i < n; ++i) {
+                if (Character.isHighSurrogate(text.charAt(i)) && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    length--;
+                    i++;
+                }
+            }
+            return length;
+        }
+
+        int encodeSingleByte(CharSequence text, byte[] dst, int off) {
+            int start = off;
+            for (int i = 0, n = text.length(); i < n; ++i) {
+                char c = text.charAt(i);
+                if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        i++;
+                    }
+                    dst[off++] = replacement;
+                } else {
+                    dst[off++] = table[c >>> 8][c & 255];
+                }
+            }
+            return off - start;
+        }
+    }
+
+    private static class PerThread {
+        private final Map<Charset, CharsetEncoder> encoders = new HashMap<Charset, CharsetEncoder>();
+        private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+        ByteBuffer encode(Charset charset, CharSequence text) {
+            CharsetEncoder encoder = encoder(charset);
+            int capacity = (int) Math.ceil(text.length() * encoder.maxBytesPerChar()) + 16;
+            ByteBuffer out = capacity <= scratch.capacity() ? scratch : ByteBuffer.allocate(capacity);
+            out.clear();
+            encoder.reset();
+            // REPLACE never reports an error and the capacity bounds the output
+            if (encoder.encode(CharBuffer.wrap(text), out, true).isOverflow() || encoder.flush(out).isOverflow()) {
+                throw new IllegalStateException(charset + " encoded past " + capacity + " bytes");
+            }
+            return out;
+        }
+
+        // REPLACE never reports an error, the only failure is running out of room
+        int encode(Charset charset, CharSequence text, byte[] dst, int off) {
+            CharsetEncoder encoder = encoder(charset);
+            ByteBuffer out = ByteBuffer.wrap(dst, off, dst.length - off);
+            encoder.reset();
+            if (encoder.encode(CharBuffer.wrap(text), out, true).isOverflow() || encoder.flush(out).isOverflow()) {
+                return -1;
+            }
+            return out.position() - off;
+        }
+
+        private CharsetEncoder encoder(Charset charset) {
+            CharsetEncoder encoder = encoders.get(charset);
+            if (encoder == null) {
+                encoder = newEncoder(charset);
+                encoders.put(charset, encoder);
+            }
+            return encoder;
+        }
+
+        void release(ByteBuffer out) {
+            if (out != scratch && out.capacity() <= MAX_SCRATCH) {
+                scratch = out;
+            }
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package cn.jystudio.bluetooth.tsc;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.util.Base64;
+import android.util.Log;
 import cn.jystudio.bluetooth.BluetoothService;
 import cn.jystudio.bluetooth.BluetoothServiceStateObserver;
+import cn.jystudio.bluetooth.ImageSource;
+import cn.jystudio.bluetooth.escpos.command.sdk.PrintPicture;
+import cn.jystudio.bluetooth.escpos.command.sdk.RasterCache;
 import com.facebook.react.bridge.*;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Vector;
 
@@ -124,10 +127,21 @@ implements BluetoothServiceStateObserver{
                 int y = img.getInt("y");
                 int imgWidth = img.getInt("width");
                 TscCommand.BITMAP_MODE mode = this.findBitmapMode(img.getInt("mode"));
+                int dither = img.hasKey("dither") ? img.getInt("dither") : PrintPicture.DITHER_ORDERED;
                 String image  = img.getString("image");
-                byte[] decoded = Base64.decode(image, Base64.DEFAULT);
-                Bitmap b = BitmapFactory.decodeByteArray(decoded, 0, decoded.length);
-                tsc.addBitmap(x,y, mode, imgWidth,b);
+                boolean packed = img.hasKey("packed") && img.getBoolean("packed");
+                byte[] raster;
+                try {
+                    raster = packed ? TscCommand.packedToRaster(ImageSource.readBytes(getReactApplicationContext(), image))
+                            : encodeImage(image, imgWidth, dither);
+                } catch (IOException e) {
+                    Log.e(TAG, "cannot read image", e);
+                    continue;
+                }
+                if (raster == null) {
+                    continue;
+                }
+                tsc.addBitmap(x, y, mode, imgWidth, raster);
             }
         }
 
@@ -290,6 +304,26 @@ implements BluetoothServiceStateObserver{
         return bm;
     }
 
+    /**
+     * BITMAP data of a base64 or file:// / content:// image, through the shared image cache.
+     */
+    private byte[] encodeImage(String image, int imgWidth, int dither) throws IOException {
+        CharSequence identity = ImageSource.cacheIdentity(image);
+        RasterCache.Key key = identity == null ? null : RasterCache.tscKey(identity, imgWidth, dither);
+        byte[] raster = key == null ? null : RasterCache.getInstance().get(key);
+        if (raster == null) {
+            Bitmap b = ImageSource.decodeBitmap(getReactApplicationContext(), image, imgWidth);
+            if (b == null) {
+                return null;
+            }
+            raster = TscCommand.bitmapToRaster(b, imgWidth, dither);
+            if (key != null) {
+                RasterCache.getInstance().put(key, raster);
+            }
+        }
+        return raster;
+    }
+
     private boolean sendDataByte(byte[] data) {
         if (mService.getState() != BluetoothService.STATE_CONNECTED) {
             return false;
@@ -3,6 +3,7 @@ package cn.jystudio.bluetooth.tsc;
 import android.graphics.Bitmap;
 import android.util.Log;
 import cn.jystudio.bluetooth.escpos.command.sdk.PrintPicture;
+import cn.jystudio.bluetooth.escpos.command.sdk.TextEncoder;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Vector;
@@ -232,7 +233,7 @@ public class TscCommand {
         byte[] bs = null;
         if (!str.equals("")) {
             try {
-                bs = str.getBytes("GB2312");
+                bs = TextEncoder.encode(str, "GB2312", 0);
             } catch (UnsupportedEncodingException e) {
                 e.printStackTrace();
             }
@@ -410,27 +411,56 @@ public class TscCommand {
 
 
     public void addBitmap(int x, int y, TscCommand.BITMAP_MODE mode, int nWidth, Bitmap b) {
+        addBitmap(x, y, mode, nWidth, b, PrintPicture.DITHER_ORDERED);
+    }
+
+    public void addBitmap(int x, int y, TscCommand.BITMAP_MODE mode, int nWidth, Bitmap b, int dither) {
         if (b != null) {
-            int width = (nWidth + 7) / 8 * 8;
-            int height = b.getHeight() * width / b.getWidth();
-            Log.d("BMP", "bmp.getWidth() " + b.getWidth());
-            Bitmap grayBitmap = PrintPicture.toGrayscale(b);
-            Bitmap rszBitmap = PrintPicture.resizeImage(grayBitmap, width, height);
-            byte[] src = PrintPicture.bitmapToBWPix(rszBitmap);
-            height = src.length / width;
-            width /= 8;
-            String str = "BITMAP " + x + "," + y + "," + width + "," + height + "," + mode.getValue() + ",";
-            this.addStrToCommand(str);
-            byte[] codecontent = PrintPicture.pixToTscCmd(src);
-
-            for (int k = 0; k < codecontent.length; ++k) {
-                this.Command.add(Byte.valueOf(codecontent[k]));
-            }
+            addBitmap(x, y, mode, nWidth, bitmapToRaster(b, nWidth, dither));
+        }
+
+    }
 
-            Log.d("TSCCommand", "codecontent" + codecontent);
-            addStrToCommand("\r\n");
+    /**
+     * 添加已编码的位图数据
+     *
+     * @param nWidth 宽度(点)
+     * @param raster {@link #bitmapToRaster} 的结果，高度由数据长度得出
+     */
+    public void addBitmap(int x, int y, TscCommand.BITMAP_MODE mode, int nWidth, byte[] raster) {
+        int width = (nWidth + 7) / 8;
+        int height = raster.length / width;
+        String str = "BITMAP " + x + "," + y + "," + width + "," + height + "," + mode.getValue() + ",";
+        this.addStrToCommand(str);
+
+        for (int k = 0; k < raster.length; ++k) {
+            this.Command.add(Byte.valueOf(raster[k]));
         }
 
+        addStrToCommand("\r\n");
+    }
+
+    /**
+     * 位图缩放、二值化并打包为 BITMAP 指令的数据部分
+     */
+    public static byte[] bitmapToRaster(Bitmap b, int nWidth, int dither) {
+        int width = (nWidth + 7) / 8 * 8;
+        int height = b.getHeight() * width / b.getWidth();
+        Log.d("BMP", "bmp.getWidth() " + b.getWidth());
+        Bitmap rszBitmap = PrintPicture.resizeImage(b, width, height);
+        byte[] src = PrintPicture.toBWPix(rszBitmap, 0, dither);
+        return PrintPicture.pixToTscCmd(src);
+    }
+
+    /**
+     * 已打包的 1 位点阵(1 为黑点)转为 BITMAP 指令的数据部分(0 为黑点)
+     */
+    public static byte[] packedToRaster(byte[] packed) {
+        byte[] raster = new byte[packed.length];
+        for (int i = 0; i < packed.length; ++i) {
+            raster[i] = (byte) ~packed[i];
+        }
+        return raster;
     }
 
     public void addBox(int x, int y, int xend, int yend) {
@@ -0,0 +1,133 @@
+package cn.jystudio.bluetooth.escpos;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class NvLogoStoreTest {
+    private static final String PRINTER = "00:11:22:33:44:55";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fsNumbersFollowThePositionAmongFsLogos() throws Exception {
+        NvLogoStore store = new NvLogoStore(folder.getRoot());
+        putFs(store, "a");
+        putGs(store, "g", 0);
+        putFs(store, "b");
+        putFs(store, "c");
+        assertEquals(1, store.fsNumber(PRINTER, "a"));
+        assertEquals(2, store.fsNumber(PRINTER, "b"));
+        assertEquals(3, store.fsNumber(PRINTER, "c"));
+        assertEquals(0, store.fsNumber(PRINTER, "g"));
+        assertEquals(0, store.fsNumber(PRINTER, "missing"));
+    }
+
+    @Test
+    public void removingALogoRenumbersTheOnesAfterIt() throws Exception {
+        NvLogoStore store = new NvLogoStore(folder.getRoot());
+        putFs(store, "a");
+        putFs(store, "b");
+        putFs(store, "c");
+        int generation = store.generation();
+        store.remove(PRINTER, "a");
+        assertNotEquals(generation, store.generation());
+        assertEquals(1, store.fsNumber(PRINTER, "b"));
+        assertEquals(2, store.fsNumber(PRINTER, "c"));
+        assertImages(store.fsImagesWith(PRINTER, null, null), "b", "c");
+    }
+
+    @Test
+    public void replacingALogoMovesItLast() throws Exception {
+        NvLogoStore store = new NvLogoStore(folder.getRoot());
+        putFs(store, "a");
+        putFs(store, "b");
+        // the set the printer is sent first, in the order put gives the numbers
+        List<byte[]> images = store.fsImagesWith(PRINTER, "a", data("a2"));
+        assertImages(images, "b", "a2");
+        store.put(PRINTER, fsLogo("a"), data("a2"));
+        assertEquals(1, store.fsNumber(PRINTER, "b"));
+        assertEquals(2, store.fsNumber(PRINTER, "a"));
+        assertImages(store.fsImagesWith(PRINTER, null, null), "b", "a2");
+    }
+
+    @Test
+    public void aLogoMovedToGsLeavesTheFsSet() throws Exception {
+        NvLogoStore store = new NvLogoStore(folder.getRoot());
+        putFs(store, "a");
+        putFs(store, "b");
+        assertImages(store.fsImagesWith(PRINTER, "a", null), "b");
+        putGs(store, "a", store.nextGsSlot(PRINTER));
+        assertEquals(0, store.fsNumber(PRINTER, "a"));
+        assertEquals(1, store.fsNumber(PRINTER, "b"));
+        assertImages(store.fsImagesWith(PRINTER, null, null), "b");
+        assertEquals(NvLogoStore.STORE_GS, store.get(PRINTER, "a").store);
+    }
+
+    @Test
+    public void gsSlotsAreNotReused() throws Exception {
+        NvLogoStore store = new NvLogoStore(folder.getRoot());
+        assertEquals(0, store.nextGsSlot(PRINTER));
+        putGs(store, "a", 0);
+        putGs(store, "b", 1);
+        store.remove(PRINTER, "a");
+        assertEquals(2, store.nextGsSlot(PRINTER));
+        NvLogoStore.Logo b = store.get(PRINTER, "b");
+        assertEquals(32, b.kc1());
+        assertEquals(33, b.kc2());
+    }
+
+    @Test
+    public void theManifestSurvivesARestart() throws Exception {
+        NvLogoStore store = new NvLogoStore(folder.getRoot());
+        putFs(store, "a");
+        putFs(store, "b");
+        putFs(store, "other", "AA:BB:CC:DD:EE:FF");
+        store.remove(PRINTER, "a");
+
+        NvLogoStore restarted = new NvLogoStore(folder.getRoot());
+        assertEquals(1, restarted.fsNumber(PRINTER, "b"));
+        assertNull(restarted.get(PRINTER, "a"));
+        assertImages(restarted.fsImagesWith(PRINTER, null, null), "b");
+        assertEquals(1, restarted.fsNumber("AA:BB:CC:DD:EE:FF", "other"));
+
+        restarted.clear(PRINTER);
+        assertEquals(0, restarted.logos(PRINTER).size());
+        assertEquals(1, restarted.logos("AA:BB:CC:DD:EE:FF").size());
+    }
+
+    private static void putFs(NvLogoStore store, String key) throws Exception {
+        putFs(store, key, PRINTER);
+    }
+
+    private static void putFs(NvLogoStore store, String key, String printer) throws Exception {
+        store.put(printer, fsLogo(key), data(key));
+    }
+
+    private static void putGs(NvLogoStore store, String key, int slot) throws Exception {
+        store.put(PRINTER, new NvLogoStore.Logo(key, key + "-id", NvLogoStore.STORE_GS, slot), null);
+    }
+
+    private static NvLogoStore.Logo fsLogo(String key) {
+        return new NvLogoStore.Logo(key, key + "-id", NvLogoStore.STORE_FS, 0);
+    }
+
+    private static byte[] data(String name) throws Exception {
+        return name.getBytes("UTF-8");
+    }
+
+    private static void assertImages(List<byte[]> images, String... names) throws Exception {
+        assertEquals(names.length, images.size());
+        for (int i = 0; i < names.length; i++) {
+            assertArrayEquals(names[i], data(names[i]), images.get(i));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package cn.jystudio.bluetooth.escpos;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReceiptTemplateTest {
+
+    @Test
+    public void parseAlternatesTextAndNames() {
+        assertArrayEquals(new String[]{"Table ", "table", ", ", "guests", " guests"},
+                ReceiptTemplate.parse("Table {{table}}, {{guests}} guests"));
+        assertArrayEquals(new String[]{"", "a", "", "b", ""}, ReceiptTemplate.parse("{{a}}{{b}}"));
+        assertArrayEquals(new String[]{"", "total", ""}, ReceiptTemplate.parse("{{ total }}"));
+    }
+
+    @Test
+    public void unclosedPlaceholdersStayText() {
+        assertNull(ReceiptTemplate.parse("Thank you"));
+        assertNull(ReceiptTemplate.parse("{{total"));
+        assertArrayEquals(new String[]{"", "a", " {{b"}, ReceiptTemplate.parse("{{a}} {{b"));
+        assertArrayEquals(new String[]{"Thank you"}, ReceiptTemplate.parts("Thank you"));
+    }
+
+    @Test
+    public void aVariableIsAPlaceholderAlone() {
+        assertEquals("rows", ReceiptTemplate.variable("{{rows}}"));
+        assertNull(ReceiptTemplate.variable(" {{rows}}"));
+        assertNull(ReceiptTemplate.variable("{{a}}{{b}}"));
+        assertNull(ReceiptTemplate.variable("rows"));
+    }
+
+    @Test
+    public void bindPrintsValuesAsJavaScriptDoes() {
+        ReadableMap variables = JavaOnlyMap.of("n", 3.0, "price", 12.5, "paid", true, "note", null, "name", "宫保鸡丁");
+        assertEquals("3 x 12.5", ReceiptTemplate.bind(ReceiptTemplate.parts("{{n}} x {{price}}"), variables));
+        assertEquals("paid: true,", ReceiptTemplate.bind(ReceiptTemplate.parts("paid: {{paid}},{{note}}"), variables));
+        assertEquals("宫保鸡丁", ReceiptTemplate.bind(ReceiptTemplate.parts("{{name}}"), variables));
+        assertEquals("no placeholder", ReceiptTemplate.bind(ReceiptTemplate.parts("no placeholder"), variables));
+        assertArrayEquals(new String[]{"3", "x", "12.5"},
+                ReceiptTemplate.bind(ReceiptTemplate.parseAll(JavaOnlyArray.of("{{n}}", "x", "{{price}}")), variables));
+    }
+
+    @Test
+    public void bindRejectsMissingAndStructuredValues() {
+        ReadableMap variables = JavaOnlyMap.of("items", JavaOnlyArray.of("a"), "order", JavaOnlyMap.of());
+        for (String text : new String[]{"{{missing}}", "{{items}}", "{{order}}"}) {
+            try {
+                ReceiptTemplate.bind(ReceiptTemplate.parts(text), variables);
+                fail(text);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void placeholdersAreLookedForInArgumentsOnly() {
+        assertTrue(ReceiptTemplate.hasPlaceholder(JavaOnlyArray.of("printText", "Total {{total}}", JavaOnlyMap.of())));
+        assertTrue(ReceiptTemplate.hasPlaceholder(JavaOnlyArray.of("printColumn",
+                JavaOnlyArray.of(18.0, 14.0), JavaOnlyArray.of(0.0, 2.0), JavaOnlyArray.of("{{item}}", "{{amount}}"))));
+        assertFalse(ReceiptTemplate.hasPlaceholder(JavaOnlyArray.of("printText", "Thank you", JavaOnlyMap.of())));
+        // the operation name and the options are not arguments
+        assertFalse(ReceiptTemplate.hasPlaceholder(JavaOnlyArray.of("{{operation}}")));
+        assertFalse(ReceiptTemplate.hasPlaceholder(JavaOnlyArray.of("printText", "Thank you",
+                JavaOnlyMap.of("encoding", "{{encoding}}"))));
+    }
+
+    @Test
+    public void keepsItsOwnCopyOfTheOperations() {
+        JavaOnlyArray operations = JavaOnlyArray.of(JavaOnlyArray.of("printText", "Total {{total}}", JavaOnlyMap.of()));
+        ReceiptTemplate template = new ReceiptTemplate(operations);
+        assertEquals(1, template.operations.size());
+        assertEquals("Total {{total}}", template.operations.getArray(0).getString(1));
+        assertFalse(template.operations == operations);
+    }
+}
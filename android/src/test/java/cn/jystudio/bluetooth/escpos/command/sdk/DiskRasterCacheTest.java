@@ -0,0 +1,139 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DiskRasterCacheTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private int sentinels = 0;
+
+    @Test
+    public void entriesSurviveARestart() throws Exception {
+        File dir = folder.getRoot();
+        DiskRasterCache cache = new DiskRasterCache(dir, 100);
+        cache.put(key("a"), new byte[]{1, 2, 3});
+        awaitWrites(cache);
+
+        File leftover = new File(dir, key("b").fileName() + ".bin.tmp");
+        assertTrue(leftover.createNewFile());
+        DiskRasterCache restarted = new DiskRasterCache(dir, 100);
+        assertArrayEquals(new byte[]{1, 2, 3}, restarted.get(key("a")));
+        assertEquals(3, restarted.getSize());
+        assertFalse(leftover.exists());
+    }
+
+    @Test
+    public void clearDropsTheWritesQueuedBeforeIt() throws Exception {
+        DiskRasterCache cache = new DiskRasterCache(folder.getRoot(), 100);
+        cache.put(key("a"), new byte[4]);
+        cache.clear();
+        awaitWrites(cache);
+        assertNull(cache.get(key("a")));
+        assertFalse(file(key("a")).exists());
+        assertEquals(0, cache.getSize());
+
+        // writes queued after it go through
+        cache.put(key("a"), new byte[4]);
+        awaitWrites(cache);
+        assertNotNull(cache.get(key("a")));
+    }
+
+    @Test
+    public void trimsTheLeastRecentlyRead() throws Exception {
+        DiskRasterCache cache = new DiskRasterCache(folder.getRoot(), 10);
+        cache.put(key("a"), new byte[4]);
+        cache.put(key("b"), new byte[4]);
+        awaitWrites(cache);
+        long now = System.currentTimeMillis();
+        assertTrue(file(key("a")).setLastModified(now - 20000));
+        assertTrue(file(key("b")).setLastModified(now - 10000));
+        cache.get(key("a"));
+
+        cache.put(key("c"), new byte[4]);
+        awaitWrites(cache);
+        assertNull(cache.get(key("b")));
+        assertNotNull(cache.get(key("a")));
+        assertNotNull(cache.get(key("c")));
+        assertEquals(8, cache.getSize());
+    }
+
+    @Test
+    public void shrinkingTheBudgetTrimsAtOnce() throws Exception {
+        DiskRasterCache cache = new DiskRasterCache(folder.getRoot(), 100);
+        cache.put(key("a"), new byte[4]);
+        cache.put(key("b"), new byte[4]);
+        awaitWrites(cache);
+        cache.setMaxBytes(5);
+        assertTrue(cache.getSize() <= 5);
+
+        cache.put(key("c"), new byte[6]);
+        awaitWrites(cache);
+        assertNull(cache.get(key("c")));
+    }
+
+    @Test
+    public void anotherProfileDropsEverything() throws Exception {
+        DiskRasterCache cache = new DiskRasterCache(folder.getRoot(), 100);
+        cache.setProfile("one");
+        cache.put(key("a"), new byte[4]);
+        awaitWrites(cache);
+
+        DiskRasterCache same = new DiskRasterCache(folder.getRoot(), 100);
+        same.setProfile("one");
+        assertNotNull(same.get(key("a")));
+
+        DiskRasterCache other = new DiskRasterCache(folder.getRoot(), 100);
+        other.setProfile("two");
+        assertNull(other.get(key("a")));
+        assertEquals(0, other.getSize());
+    }
+
+    @Test
+    public void backsTheMemoryCache() throws Exception {
+        DiskRasterCache disk = new DiskRasterCache(folder.getRoot(), 100);
+        RasterCache first = new RasterCache(100);
+        first.setDiskCache(disk);
+        first.put(key("a"), new byte[]{7});
+        awaitWrites(disk);
+
+        RasterCache second = new RasterCache(100);
+        second.setDiskCache(new DiskRasterCache(folder.getRoot(), 100));
+        assertArrayEquals(new byte[]{7}, second.get(key("a")));
+        assertEquals(1, second.getDiskHits());
+        assertEquals(1, second.getCount());
+        assertNull(second.get(key("b")));
+        assertEquals(1, second.getMisses());
+    }
+
+    private File file(RasterCache.Key key) {
+        return new File(folder.getRoot(), key.fileName() + ".bin");
+    }
+
+    /**
+     * Writes run in order on one thread: once an empty entry queued last is readable, the others are written.
+     */
+    private void awaitWrites(DiskRasterCache cache) throws InterruptedException {
+        RasterCache.Key sentinel = key("sentinel-" + sentinels++);
+        cache.put(sentinel, new byte[0]);
+        for (long deadline = System.currentTimeMillis() + 5000; cache.get(sentinel) == null; ) {
+            assertTrue("writes did not finish", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static RasterCache.Key key(String input) {
+        return RasterCache.escposKey(input, 384, 0, 0, 0);
+    }
+}
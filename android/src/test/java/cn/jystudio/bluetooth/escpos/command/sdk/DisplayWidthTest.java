@@ -0,0 +1,91 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DisplayWidthTest {
+
+    @Test
+    public void theBitmapHoldsExactlyTheRanges() throws Exception {
+        int[] wide = ranges("WIDE");
+        int[] ambiguous = ranges("AMBIGUOUS");
+        for (int c = 0xA1; c <= Character.MAX_CODE_POINT; c++) {
+            boolean w = in(wide, c);
+            boolean a = in(ambiguous, c);
+            String code = Integer.toHexString(c);
+            assertEquals(code, w ? 2 : 1, DisplayWidth.of(c, false));
+            assertEquals(code, w || a ? 2 : 1, DisplayWidth.of(c, true));
+        }
+    }
+
+    @Test
+    public void widthsOfCommonReceiptText() {
+        assertEquals(1, DisplayWidth.of('A', true));
+        assertEquals(1, DisplayWidth.of('é', false));
+        assertEquals(2, DisplayWidth.of('欢', false));
+        assertEquals(2, DisplayWidth.of('，', false));
+        assertEquals(2, DisplayWidth.of('。', false));
+        assertEquals(2, DisplayWidth.of('가', false));
+        assertEquals(2, DisplayWidth.of('カ', false));
+        // half-width katakana and full-width forms
+        assertEquals(1, DisplayWidth.of('ｶ', true));
+        assertEquals(2, DisplayWidth.of('Ａ', false));
+        assertEquals(2, DisplayWidth.of(0x1F600, false));
+        assertEquals(2, DisplayWidth.of(0x2000B, false));
+        // box drawing, Greek and curly quotes take two cells in an East Asian code page only
+        for (int c : new int[]{'─', 'α', '“', '€'}) {
+            assertEquals(1, DisplayWidth.of(c, false));
+            assertEquals(2, DisplayWidth.of(c, true));
+        }
+        assertEquals(1, DisplayWidth.of(0xD800, true));
+        assertEquals(1, DisplayWidth.of(-1, true));
+        assertEquals(1, DisplayWidth.of(Character.MAX_CODE_POINT + 1, true));
+    }
+
+    @Test
+    public void eastAsianEncodings() {
+        for (String encoding : new String[]{"GBK", "gb2312", "GB18030", "Big5", "Shift_JIS", "EUC-KR"}) {
+            assertTrue(encoding, DisplayWidth.isEastAsian(encoding));
+        }
+        for (String encoding : new String[]{"CP437", "windows-1252", "UTF-8", "no-such-charset", "bad name"}) {
+            assertFalse(encoding, DisplayWidth.isEastAsian(encoding));
+        }
+    }
+
+    @Test
+    public void tablesNeverSplitASurrogatePair() {
+        StringBuilder out = new StringBuilder();
+        new TableLayout(new int[]{4}, new int[]{TableLayout.ALIGN_LEFT}).appendRow(new String[]{"a😀😀b"}, out);
+        assertEquals("a😀 \n\r😀b \n\r", out.toString());
+    }
+
+    @Test
+    public void ambiguousCharactersFollowTheCodePage() {
+        StringBuilder eastAsian = new StringBuilder();
+        new TableLayout(new int[]{6}, new int[]{TableLayout.ALIGN_RIGHT}, true).appendRow(new String[]{"──"}, eastAsian);
+        assertEquals(" ── \n\r", eastAsian.toString());
+        StringBuilder latin = new StringBuilder();
+        new TableLayout(new int[]{6}, new int[]{TableLayout.ALIGN_RIGHT}, false).appendRow(new String[]{"──"}, latin);
+        assertEquals("   ── \n\r", latin.toString());
+    }
+
+    private static int[] ranges(String name) throws Exception {
+        Field field = DisplayWidth.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return (int[]) field.get(null);
+    }
+
+    private static boolean in(int[] ranges, int c) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (c >= ranges[i] && c <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,93 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RasterCacheTest {
+
+    @Test
+    public void evictsTheLeastRecentlyUsed() {
+        RasterCache cache = new RasterCache(10);
+        RasterCache.Key a = key("a"), b = key("b"), c = key("c");
+        cache.put(a, new byte[4]);
+        cache.put(b, new byte[4]);
+        cache.get(a);
+        cache.put(c, new byte[4]);
+
+        assertNull(cache.get(b));
+        assertEquals(4, cache.get(a).length);
+        assertEquals(4, cache.get(c).length);
+        assertEquals(2, cache.getCount());
+        assertEquals(8, cache.getSize());
+    }
+
+    @Test
+    public void replacingAnEntryCountsItsNewSize() {
+        RasterCache cache = new RasterCache(10);
+        RasterCache.Key a = key("a");
+        cache.put(a, new byte[4]);
+        cache.put(a, new byte[6]);
+        assertEquals(1, cache.getCount());
+        assertEquals(6, cache.getSize());
+    }
+
+    @Test
+    public void entriesLargerThanTheBudgetAreNotKept() {
+        RasterCache cache = new RasterCache(10);
+        RasterCache.Key a = key("a");
+        cache.put(a, new byte[4]);
+        cache.put(key("b"), new byte[11]);
+        assertEquals(1, cache.getCount());
+        assertEquals(4, cache.get(a).length);
+    }
+
+    @Test
+    public void shrinkingTheBudgetTrimsAtOnce() {
+        RasterCache cache = new RasterCache(100);
+        for (int i = 0; i < 10; ++i) {
+            cache.put(key("k" + i), new byte[10]);
+        }
+        cache.setMaxBytes(35);
+        assertEquals(3, cache.getCount());
+        assertEquals(30, cache.getSize());
+        assertNull(cache.get(key("k6")));
+        assertEquals(10, cache.get(key("k9")).length);
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        RasterCache cache = new RasterCache(10);
+        byte[] data = new byte[4];
+        cache.put(key("a"), data);
+        assertSame(data, cache.get(key("a")));
+        assertNull(cache.get(key("b")));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        cache.clear();
+        assertEquals(0, cache.getCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void keysHoldEveryParameter() {
+        assertEquals(RasterCache.escposKey("img", 384, 0, 0, 2), RasterCache.escposKey("img", 384, 0, 0, 2));
+        assertEquals(RasterCache.escposKey("img", 384, 0, 0, 2).hashCode(),
+                RasterCache.escposKey("img", 384, 0, 0, 2).hashCode());
+        assertNotEquals(RasterCache.escposKey("img", 384, 0, 0, 2), RasterCache.escposKey("img", 576, 0, 0, 2));
+        assertNotEquals(RasterCache.escposKey("img", 384, 0, 0, 2), RasterCache.escposKey("img", 384, 8, 0, 2));
+        assertNotEquals(RasterCache.escposKey("img", 384, 0, 0, 2), RasterCache.escposKey("img", 384, 0, 1, 2));
+        assertNotEquals(RasterCache.escposKey("img", 384, 0, 0, 2), RasterCache.escposKey("img", 384, 0, 0, 3));
+        assertNotEquals(RasterCache.escposKey("img", 384, 0, 0, 2), RasterCache.escposKey("imh", 384, 0, 0, 2));
+        assertNotEquals(RasterCache.escposKey("img", 384, 0, 0, 2), RasterCache.escposKey("img", 384, 0, 0, 2).cropped());
+        // the same fields under another command
+        assertNotEquals(RasterCache.downloadKey("img", 384, 2), RasterCache.tscKey("img", 384, 2));
+    }
+
+    private static RasterCache.Key key(String input) {
+        return RasterCache.escposKey(input, 384, 0, 0, 0);
+    }
+}
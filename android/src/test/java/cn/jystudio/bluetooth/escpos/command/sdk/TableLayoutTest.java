@@ -0,0 +1,164 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TableLayoutTest {
+    // ASCII, CJK ideographs and full-width punctuation, which the first release measured as DisplayWidth does
+    private static final String ALPHABET = "abcdefghij KLMNOP 0123456789.:-欢迎光临宫保鸡丁鱼香肉丝麻婆豆腐米饭合计，。（）：";
+
+    @Test
+    public void matchesTheFirstReleaseLayout() {
+        Random random = new Random(1);
+        for (int table = 0; table < 500; table++) {
+            int columns = 1 + random.nextInt(4);
+            int[] widths = new int[columns];
+            int[] aligns = new int[columns];
+            for (int i = 0; i < columns; i++) {
+                widths[i] = 3 + random.nextInt(14);
+                aligns[i] = random.nextInt(3);
+            }
+            TableLayout layout = new TableLayout(widths, aligns);
+            StringBuilder out = new StringBuilder();
+            StringBuilder expected = new StringBuilder();
+            for (int row = 0; row < 5; row++) {
+                String[] texts = new String[columns];
+                for (int i = 0; i < columns; i++) {
+                    texts[i] = text(random, random.nextInt(30));
+                }
+                layout.appendRow(texts, out);
+                expected.append(firstReleaseLayout(widths, aligns, texts));
+            }
+            assertEquals(expected.toString(), out.toString());
+        }
+    }
+
+    @Test
+    public void alignsInsideTheColumnLessItsPadding() {
+        StringBuilder out = new StringBuilder();
+        new TableLayout(new int[]{8, 8, 8}, new int[]{TableLayout.ALIGN_LEFT, TableLayout.ALIGN_CENTER,
+                TableLayout.ALIGN_RIGHT}).appendRow(new String[]{"ab", "ab", "合计"}, out);
+        assertEquals("ab        ab       合计 \n\r", out.toString());
+    }
+
+    @Test
+    public void aRowTakesTheLinesOfItsLongestCell() {
+        StringBuilder out = new StringBuilder();
+        TableLayout layout = new TableLayout(new int[]{6, 4}, new int[]{TableLayout.ALIGN_LEFT, TableLayout.ALIGN_RIGHT});
+        layout.appendRow(new String[]{"宫保鸡丁饭", "1"}, out);
+        assertEquals(10, layout.width());
+        // the third ideograph reaches the column width and takes the padding cell
+        assertEquals("宫保鸡  1 \n\r丁饭      \n\r", out.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rowsMustFillEveryColumn() {
+        new TableLayout(new int[]{8, 8}, new int[]{0, 0}).appendRow(new String[]{"a"}, new StringBuilder());
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * The layout code of the first release's printColumn, returning the text it encoded.
+     */
+    private static String firstReleaseLayout(int[] columnWidths, int[] columnAligns, String[] columnTexts) {
+        List<List<String>> table = new ArrayList<List<String>>();
+        int padding = 1;
+        for (int i = 0; i < columnWidths.length; i++) {
+            int width = columnWidths[i] - padding;
+            String text = columnTexts[i];
+            List<String> splited = new ArrayList<String>();
+            List<Integer> shorters = new ArrayList<Integer>();
+            int shorter = 0;
+            int counter = 0;
+            String temp = "";
+            for (int c = 0; c < text.length(); c++) {
+                char ch = text.charAt(c);
+                int l = isChinese(ch) ? 2 : 1;
+                if (l == 2) {
+                    shorter++;
+                }
+                temp = temp + ch;
+                if (counter + l < width) {
+                    counter = counter + l;
+                } else {
+                    splited.add(temp);
+                    shorters.add(shorter);
+                    temp = "";
+                    counter = 0;
+                    shorter = 0;
+                }
+            }
+            if (temp.length() > 0) {
+                splited.add(temp);
+                shorters.add(shorter);
+            }
+            int align = columnAligns[i];
+            List<String> formated = new ArrayList<String>();
+            for (int s = 0; s < splited.size(); s++) {
+                String ss = splited.get(s);
+                int sh = shorters.get(s);
+                StringBuilder empty = new StringBuilder();
+                for (int w = 0; w < (width + padding - sh); w++) {
+                    empty.append(" ");
+                }
+                int startIdx = 0;
+                if (align == 1 && ss.length() < (width - sh)) {
+                    startIdx = (width - sh - ss.length()) / 2;
+                    if (startIdx + ss.length() > width - sh) {
+                        startIdx--;
+                    }
+                    if (startIdx < 0) {
+                        startIdx = 0;
+                    }
+                } else if (align == 2 && ss.length() < (width - sh)) {
+                    startIdx = width - sh - ss.length();
+                }
+                empty.replace(startIdx, startIdx + ss.length(), ss);
+                formated.add(empty.toString());
+            }
+            table.add(formated);
+        }
+        int maxRowCount = 0;
+        for (List<String> rows : table) {
+            maxRowCount = Math.max(maxRowCount, rows.size());
+        }
+        StringBuilder out = new StringBuilder();
+        for (int row = 0; row < maxRowCount; row++) {
+            for (int column = 0; column < table.size(); column++) {
+                List<String> rows = table.get(column);
+                if (row < rows.size()) {
+                    out.append(rows.get(row));
+                } else {
+                    for (int i = 0; i < columnWidths[column]; i++) {
+                        out.append(" ");
+                    }
+                }
+            }
+            out.append("\n\r");
+        }
+        return out.toString();
+    }
+
+    private static boolean isChinese(char c) {
+        Character.UnicodeBlock ub = Character.UnicodeBlock.of(c);
+        return ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || ub == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || ub == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B
+                || ub == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || ub == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS
+                || ub == Character.UnicodeBlock.GENERAL_PUNCTUATION;
+    }
+}
@@ -0,0 +1,81 @@
+package cn.jystudio.bluetooth.escpos.command.sdk;
+
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TextEncoderTest {
+    private static final String[] ENCODINGS = {"CP437", "CP850", "windows-1252", "GBK", "Big5", "Shift_JIS", "UTF-8"};
+    private static final String[] TEXTS = {
+            "",
+            "Total: 12.50",
+            "欢迎光临 Welcome, 合计 Total: ¥164.00",
+            "Crème brûlée – 3 × €4,50 “to go”",
+            "╔══╗ │ ░▒▓ αβγ ñ",
+            // a pair, a pair at the end, lone surrogates in the middle and at both ends
+            "emoji 😀 and 𠀋",
+            "\udc00lone\ud800 high\ud800",
+            "\ud800",
+    };
+
+    @Test
+    public void givesTheBytesOfGetBytes() throws Exception {
+        for (String encoding : ENCODINGS) {
+            for (String text : TEXTS) {
+                assertEncodes(text, encoding);
+            }
+        }
+    }
+
+    @Test
+    public void everyBmpCharOfASingleByteCodePage() throws Exception {
+        StringBuilder all = new StringBuilder(65536);
+        for (int c = 0; c < 65536; c++) {
+            all.append((char) c);
+        }
+        for (String encoding : new String[]{"CP437", "CP850", "windows-1252", "ISO-8859-15"}) {
+            assertEncodes(all.toString(), encoding);
+        }
+        assertEncodes(all.toString(), "GBK");
+    }
+
+    @Test
+    public void leavesRoomForACommandHeader() throws Exception {
+        byte[] data = TextEncoder.encode(new StringBuilder("合计"), "GBK", 3);
+        assertArrayEquals(new byte[3], Arrays.copyOf(data, 3));
+        assertArrayEquals("合计".getBytes("GBK"), Arrays.copyOfRange(data, 3, data.length));
+    }
+
+    @Test
+    public void reportsWhenTheBufferIsTooSmall() throws Exception {
+        for (String encoding : new String[]{"CP437", "GBK"}) {
+            String text = "欢迎 Welcome 😀";
+            int length = text.getBytes(encoding).length;
+            assertEquals(encoding, -1, TextEncoder.encode(text, encoding, new byte[length + 1], 2));
+            byte[] dst = new byte[length + 2];
+            assertEquals(encoding, length, TextEncoder.encode(text, encoding, dst, 2));
+        }
+    }
+
+    @Test(expected = UnsupportedEncodingException.class)
+    public void unknownEncodingsAreReported() throws Exception {
+        TextEncoder.encode("text", "no-such-charset", 0);
+    }
+
+    private static void assertEncodes(String text, String encoding) throws Exception {
+        byte[] expected = text.getBytes(encoding);
+        String message = encoding + " " + (text.length() > 40 ? text.length() + " chars" : text);
+        assertArrayEquals(message, expected, TextEncoder.encode(text, encoding, 0));
+
+        int max = TextEncoder.maxLength(text, encoding);
+        assertTrue(message, max >= expected.length);
+        byte[] dst = new byte[max + 5];
+        int n = TextEncoder.encode(new StringBuilder(text), encoding, dst, 5);
+        assertArrayEquals(message, expected, Arrays.copyOfRange(dst, 5, 5 + n));
+    }
+}
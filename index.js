@@ -141,6 +141,32 @@ BluetoothEscposPrinter.ALIGN={
     CENTER:1,
     RIGHT:2
 };
+BluetoothEscposPrinter.DITHER={
+    THRESHOLD:0,
+    ORDERED:1,
+    FLOYD_STEINBERG:2,
+    ATKINSON:3,
+    STUCKI:4
+};
+BluetoothEscposPrinter.RESOLUTION={
+    AUTO:-1,
+    FULL:0,
+    HALF_WIDTH:1,
+    HALF_HEIGHT:2,
+    HALF:3
+};
+BluetoothEscposPrinter.RASTER_FORMAT={
+    GS_V_0:0,
+    ESC_STAR:1
+};
+BluetoothEscposPrinter.QR_FORMAT={
+    RASTER:0,
+    GS_K:1
+};
+BluetoothEscposPrinter.LOGO_STORE={
+    FS_Q:0,
+    GS_L:1
+};
 
  module.exports ={
     BluetoothManager,BluetoothEscposPrinter, BluetoothTscPrinter };
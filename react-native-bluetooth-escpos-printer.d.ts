@@ -35,6 +35,37 @@ declare module 'react-native-bluetooth-escpos-printer' {
       RIGHT = 2,
     }
 
+    enum DITHER {
+      THRESHOLD = 0,
+      ORDERED = 1,
+      FLOYD_STEINBERG = 2,
+      ATKINSON = 3,
+      STUCKI = 4,
+    }
+
+    enum RESOLUTION {
+      AUTO = -1, // HALF when the link is slower than the profile slowLinkBytesPerSecond (4KB/s), FULL otherwise
+      FULL = 0,
+      HALF_WIDTH = 1,
+      HALF_HEIGHT = 2,
+      HALF = 3, // A quarter of the bytes
+    }
+
+    enum RASTER_FORMAT {
+      GS_V_0 = 0, // Raster rows
+      ESC_STAR = 1, // 24-dot column bands, for printers slow at or lacking GS v 0
+    }
+
+    enum QR_FORMAT {
+      RASTER = 0, // Encoded on the phone and sent as an image
+      GS_K = 1, // GS ( k, encoded by the printer, for printers with a built-in QR encoder
+    }
+
+    enum LOGO_STORE {
+      FS_Q = 0, // FS q NV bit images, every store uploads all logos again
+      GS_L = 1, // GS 8 L NV graphics, stored one by one by key code
+    }
+
     interface IPrintTextOptions {
       encoding?: string; // Text encoding. Default: GBK
       codepage?: number; // Codepage using. Default 0
@@ -46,6 +77,10 @@ declare module 'react-native-bluetooth-escpos-printer' {
     interface IPrintPicOptions {
       width: number;
       left: number;
+      dither?: DITHER; // Black/white conversion. Default: THRESHOLD
+      packed?: boolean; // The data is 1-bit rows of `width` dots, MSB first, 1 = black. Default: false
+      resolution?: RESOLUTION; // Sent at reduced resolution and scaled up by the printer. Default: FULL
+      crop?: boolean; // Drop the white margins, keeping the position and scale of the content. Default: false
     }
 
     function printerInit(): Promise<void>;
@@ -100,10 +135,42 @@ declare module 'react-native-bluetooth-escpos-printer' {
       options: IPrintTextOptions
     ): Promise<void>;
 
+    /**
+     * printColumn for many rows in one call, each row an array of column texts.
+     * The whole table is laid out and sent to the printer as one job.
+     */
+    function printTable(
+      columnWidths: Array<number>,
+      columnAligns: Array<ALIGN>,
+      rows: Array<Array<string>>,
+      options: IPrintTextOptions
+    ): Promise<void>;
+
+    /**
+     * A whole receipt in one call: each operation is a method name of this module and its arguments,
+     * e.g. ["printerAlign", ALIGN.CENTER] or ["printText", "total\n\r", {}].
+     * Everything is sent as one job; nothing is printed when an operation is invalid.
+     */
+    function printDocument(operations: Array<[string, ...any[]]>): Promise<void>;
+
+    /**
+     * Registers printDocument operations to print many times with printTemplate. Texts, column texts
+     * and code contents may hold {{name}} placeholders, and printTable rows may be one placeholder.
+     * The rest is encoded once, here.
+     */
+    function registerTemplate(name: string, operations: Array<[string, ...any[]]>): Promise<void>;
+
+    /**
+     * Prints a registered template with the variables of one order, as one job.
+     */
+    function printTemplate(name: string, variables: { [name: string]: any }): Promise<void>;
+
+    function unregisterTemplate(name: string): void;
+
     function setWidth(width: number): Promise<void>;
 
     /**
-     * Prints the image which is encoded by base64, without schema.
+     * Prints the image which is encoded by base64, without schema, or read from a file:// or content:// URI.
      * options: contains the params that may use in printing pic.
      *
      * width: the pic width, basic on devices width(dots, 58mm-384);
@@ -111,6 +178,110 @@ declare module 'react-native-bluetooth-escpos-printer' {
      */
     function printPic(base64encodeStr: string, options: IPrintPicOptions): Promise<void>;
 
+    interface IImageCacheStats {
+      hits: number;
+      misses: number;
+      size: number; // Bytes held
+      maxSize: number; // Byte budget
+      count: number;
+      diskHits: number; // Misses in memory served from the disk cache
+      diskSize?: number;
+      diskMaxSize?: number;
+    }
+
+    interface IPrintDownloadedPicOptions {
+      width?: number; // Default: the printer width
+      dither?: DITHER; // Default: THRESHOLD
+      mode?: number; // 0-normal 1-double width 2-double height 3-quadruple. Default 0
+    }
+
+    /**
+     * Prints a small image through the downloaded bit image of the printer (GS * / GS /).
+     * The image is sent once and only a 3 byte command afterwards, while it stays resident.
+     * Rejects with IMAGE_TOO_LARGE past 384 dots high.
+     */
+    function printDownloadedPic(base64encodeStr: string, options?: IPrintDownloadedPicOptions): Promise<void>;
+
+    /**
+     * Sets the byte budget of the encoded image cache used by printPic() and the TSC image option.
+     * 0 disables caching. Default: 2MB
+     */
+    function setImageCacheSize(bytes: number): void;
+
+    /**
+     * Sets the byte budget of the on-disk image cache that survives app restarts.
+     * 0 disables it. Default: 8MB
+     */
+    function setImageDiskCacheSize(bytes: number): void;
+
+    function clearImageCache(): void;
+
+    function getImageCacheStats(): Promise<IImageCacheStats>;
+
+    /**
+     * Sets the byte budget of the cache of finished printQRCode() and printBarCode() commands.
+     * 0 disables caching. Default: 256KB
+     */
+    function setCodeCacheSize(bytes: number): void;
+
+    interface ICodeCacheStats {
+      hits: number;
+      misses: number;
+      hitRate: number; // hits / (hits + misses), 0 before the first lookup
+      size: number;
+      maxSize: number;
+      count: number;
+    }
+
+    function getCodeCacheStats(): Promise<ICodeCacheStats>;
+
+    interface IStoreLogoOptions {
+      width?: number; // Default: the printer width
+      dither?: DITHER; // Default: THRESHOLD
+      store?: LOGO_STORE; // Default: FS_Q
+      force?: boolean; // Upload even if already stored. Default: false
+    }
+
+    /**
+     * Uploads the image into the NV memory of the connected printer under the key.
+     * Resolves false when the same image is already stored there with the same options.
+     */
+    function storeLogo(key: string, base64encodeStr: string, options?: IStoreLogoOptions): Promise<boolean>;
+
+    /**
+     * mode: FS_Q logos only, 0-normal 1-double width 2-double height 3-quadruple. Default 0
+     */
+    function printLogo(key: string, options?: { mode?: number }): Promise<void>;
+
+    function getStoredLogos(): Promise<string[]>;
+
+    function clearStoredLogos(): Promise<void>;
+
+    interface IPrinterProfile {
+      rasterFormat?: RASTER_FORMAT; // Default: GS_V_0
+      qrFormat?: QR_FORMAT; // Default: RASTER
+      linkBytesPerSecond?: number; // Default: 0, measured
+      slowLinkBytesPerSecond?: number; // Default: 4096
+    }
+
+    /**
+     * Settings kept per printer address, applied while that printer is connected.
+     */
+    function setPrinterProfile(profile: IPrinterProfile): void;
+
+    function getPrinterProfile(): Promise<IPrinterProfile>;
+
+    interface IRasterFormatTimes {
+      gsv0: number; // ms, -1 if the printer did not answer
+      escStar: number;
+      faster?: RASTER_FORMAT;
+    }
+
+    /**
+     * Prints the image in both raster formats and times how long the printer takes to process each.
+     */
+    function compareRasterFormats(base64encodeStr: string, options?: { width?: number; dither?: DITHER }): Promise<IRasterFormatTimes>;
+
     function rotate(): Promise<void>;
 
     function setBlob(weight: number): Promise<void>;
@@ -309,6 +480,8 @@ declare module 'react-native-bluetooth-escpos-printer' {
         mode: BITMAP_MODE;
         width: number;
         image: string;
+        dither?: BluetoothEscposPrinter.DITHER; // Default: ORDERED
+        packed?: boolean; // image holds 1-bit rows of `width` dots, MSB first, 1 = black
       }>;
     }
 